@@ -58,6 +58,13 @@ public enum CSB_PropertyType {
         LECTURES_HEADING_LABEL,
         HWS_HEADING_LABEL,
 
+        // AUTOSAVE STATUS LABELS
+        AUTOSAVE_PENDING_LABEL,
+        AUTOSAVE_SAVING_LABEL,
+        AUTOSAVE_SAVED_LABEL,
+        AUTOSAVE_AUTOSAVED_LABEL,
+        AUTOSAVE_FAILED_LABEL,
+
         // PAGE CHECKBOX LABELS
         INDEX_CHECKBOX_LABEL,
         SYLLABUS_CHECKBOX_LABEL,
@@ -84,5 +91,6 @@ public enum CSB_PropertyType {
         COURSE_SAVED_MESSAGE,
         SITE_EXPORTED_MESSAGE,
         SAVE_UNSAVED_WORK_MESSAGE,
+        RESTORE_AUTOSAVED_WORK_MESSAGE,
         REMOVE_ITEM_MESSAGE
 }
@@ -15,6 +15,7 @@ public class CSB_StartupConstants
     public static final String PROPERTIES_SCHEMA_FILE_NAME = "properties_schema.xsd";    
     public static final String PATH_DATA = "./data/";
     public static final String PATH_COURSES = PATH_DATA + "courses/";
+    public static final String PATH_AUTOSAVE = PATH_DATA + "autosave/";
     public static final String PATH_IMAGES = "./images/";
     public static final String PATH_CSS = "csb/css/";
     public static final String PATH_SITES = "sites/";
@@ -30,4 +31,5 @@ public class CSB_StartupConstants
 
     // ERROR DIALOG CONTROL
     public static String CLOSE_BUTTON_LABEL = "Close";
+    public static String CANCEL_BUTTON_LABEL = "Cancel";
 }
\ No newline at end of file
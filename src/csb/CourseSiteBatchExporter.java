@@ -0,0 +1,271 @@
+package csb;
+
+import static csb.CSB_StartupConstants.PATH_BASE;
+import static csb.CSB_StartupConstants.PATH_COURSES;
+import static csb.CSB_StartupConstants.PATH_SITES;
+import csb.data.Course;
+import csb.data.Instructor;
+import csb.file.AssetPublisher;
+import csb.file.CourseSiteExporter;
+import csb.file.DepartmentExportScheduler;
+import csb.file.JsonCourseFileManager;
+import csb.file.PageWritePipeline;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * CourseSiteBatchExporter rebuilds the site of every course found in the
+ * courses data directory without any user interface, which makes it suitable
+ * for running from a scheduled job. Courses are loaded by a pool of workers and
+ * then all their pages are exported together by a DepartmentExportScheduler,
+ * after which a summary, and every failure, is printed. Note that this never
+ * starts the JavaFX toolkit.
+ *
+ * Usage: CourseSiteBatchExporter [-workers N] [-writers N] [-full] [-metrics]
+ *     [-renderer dom|streaming|compiled]
+ *     [-assets copy|hard_link|symbolic_link|shared]
+ *
+ * where -workers sets how many courses are loaded, and pages exported, at the
+ * same time, -writers sets how many pages are written to their files at the
+ * same time, 0 meaning by the workers themselves, -full exports every page
+ * even if it hasn't changed since the last export, -metrics prints how long
+ * every page took, -renderer picks how pages are rendered, compiled being the
+ * default, and -assets picks how style sheets and images are published,
+ * copying them being the default.
+ */
+public class CourseSiteBatchExporter {
+
+    // COMMAND LINE OPTIONS
+    public static final String OPTION_WORKERS = "-workers";
+    public static final String OPTION_WRITERS = "-writers";
+    public static final String OPTION_FULL = "-full";
+    public static final String OPTION_METRICS = "-metrics";
+    public static final String OPTION_RENDERER = "-renderer";
+    public static final String OPTION_ASSETS = "-assets";
+    public static final String USAGE = "Usage: CourseSiteBatchExporter ["
+            + OPTION_WORKERS + " N] [" + OPTION_WRITERS + " N] ["
+            + OPTION_FULL + "] [" + OPTION_METRICS + "] ["
+            + OPTION_RENDERER + " dom|streaming|compiled] ["
+            + OPTION_ASSETS + " copy|hard_link|symbolic_link|shared]";
+
+    // THIS IS THE EXTENSION OF THE COURSE FILES WE'LL EXPORT
+    public static final String JSON_EXT = ".json";
+
+    // THESE DO THE ACTUAL LOADING AND EXPORTING
+    private final JsonCourseFileManager fileManager;
+    private final CourseSiteExporter exporter;
+
+    // THE NUMBER OF COURSES TO LOAD, AND PAGES TO EXPORT, AT THE SAME TIME
+    private final int workers;
+
+    // WHETHER TO PRINT HOW EVERY PAGE'S EXPORT WENT
+    private boolean printMetrics;
+
+    /**
+     * This constructor sets up the batch exporter to use the provided
+     * exporter with the provided number of workers.
+     *
+     * @param initExporter The exporter that will build the sites.
+     * @param initWorkers The number of courses to load, and pages to export,
+     * at the same time.
+     */
+    public CourseSiteBatchExporter(CourseSiteExporter initExporter, int initWorkers) {
+        fileManager = new JsonCourseFileManager();
+        exporter = initExporter;
+        workers = Math.max(1, initWorkers);
+    }
+
+    /**
+     * Mutator method for whether the metrics of every exported page are
+     * printed along with the summary.
+     *
+     * @param initPrintMetrics true to print them, false otherwise.
+     */
+    public void setPrintMetrics(boolean initPrintMetrics) {
+        printMetrics = initPrintMetrics;
+    }
+
+    /**
+     * Loads and exports every course file in the coursesDir directory, printing
+     * how long each one took to load and export and what went wrong, if
+     * anything.
+     *
+     * @param coursesDir The directory containing the course JSON files.
+     *
+     * @return The number of courses and pages that could not be loaded or
+     * exported.
+     *
+     * @throws InterruptedException Thrown if we are interrupted while waiting
+     * for the workers to finish.
+     */
+    public int exportAll(String coursesDir) throws InterruptedException {
+        // FIND ALL THE COURSES
+        File[] courseFiles = new File(coursesDir).listFiles(
+                (File dir, String name) -> name.endsWith(JSON_EXT));
+        if (courseFiles == null) {
+            System.out.println("NO COURSES FOUND IN " + coursesDir);
+            return 0;
+        }
+        Arrays.sort(courseFiles);
+
+        // HAVE THE WORKERS LOAD THEM
+        long startTime = System.nanoTime();
+        ExecutorService workerPool = Executors.newFixedThreadPool(workers);
+        List<Future<CourseTiming>> results = new ArrayList();
+        for (File courseFile : courseFiles) {
+            results.add(workerPool.submit(() -> loadCourse(courseFile)));
+        }
+        workerPool.shutdown();
+        int failures = 0;
+        List<CourseTiming> timings = new ArrayList();
+        List<Course> courses = new ArrayList();
+        for (Future<CourseTiming> result : results) {
+            try {
+                CourseTiming timing = result.get();
+                timings.add(timing);
+                if (timing.failure != null) {
+                    failures++;
+                } else {
+                    courses.add(timing.course);
+                }
+            } catch (ExecutionException ee) {
+                System.out.println("LOAD FAILED: " + ee.getCause());
+                failures++;
+            }
+        }
+
+        // THEN EXPORT ALL THEIR PAGES TOGETHER
+        DepartmentExportScheduler scheduler = new DepartmentExportScheduler(exporter, workers);
+        DepartmentExportScheduler.ExportReport report;
+        try {
+            report = scheduler.exportAll(courses);
+        } finally {
+            scheduler.shutdown();
+        }
+
+        // AND REPORT ON HOW THEY DID
+        for (CourseTiming timing : timings) {
+            if (timing.course != null) {
+                timing.exportNanos = report.getCourseExportNanos(timing.course);
+            }
+            System.out.println(timing);
+        }
+        if (printMetrics) {
+            for (DepartmentExportScheduler.PageMetrics metrics : report.getPageMetrics()) {
+                System.out.println(metrics);
+            }
+        }
+        for (DepartmentExportScheduler.ExportFailure failure : report.getFailures()) {
+            System.out.println(failure);
+            failures++;
+        }
+        System.out.println(report);
+        long totalMillis = (System.nanoTime() - startTime) / 1000000;
+        System.out.println("LOADED " + courses.size() + " OF " + courseFiles.length
+                + " COURSES AND EXPORTED THEM IN " + totalMillis + " ms USING "
+                + workers + " WORKERS");
+        return failures;
+    }
+
+    // LOADS A SINGLE COURSE, TIMING IT
+    private CourseTiming loadCourse(File courseFile) {
+        CourseTiming timing = new CourseTiming(courseFile.getName());
+        try {
+            long loadStart = System.nanoTime();
+            Course course = new Course(new Instructor("", ""));
+            fileManager.loadCourse(course, courseFile.getPath());
+            timing.loadNanos = System.nanoTime() - loadStart;
+            timing.course = course;
+        } catch (Exception e) {
+            timing.failure = e;
+        }
+        return timing;
+    }
+
+    /**
+     * How long it took to load and export one course, or what went wrong
+     * loading it.
+     */
+    private static class CourseTiming {
+
+        String courseFileName;
+        Course course;
+        long loadNanos;
+        long exportNanos;
+        Exception failure;
+
+        CourseTiming(String initCourseFileName) {
+            courseFileName = initCourseFileName;
+        }
+
+        @Override
+        public String toString() {
+            if (failure != null) {
+                return String.format("%-20s FAILED: %s", courseFileName, failure);
+            }
+            return String.format("%-20s loaded in %6.1f ms, exported in %7.1f ms",
+                    courseFileName, loadNanos / 1e6, exportNanos / 1e6);
+        }
+    }
+
+    /**
+     * This is where batch exporting begins.
+     *
+     * @param args The command line options, see USAGE.
+     */
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);
+
+        // READ THE OPTIONS
+        int workers = Runtime.getRuntime().availableProcessors();
+        int writers = PageWritePipeline.DEFAULT_WRITER_THREADS;
+        boolean fullExport = false;
+        boolean printMetrics = false;
+        CourseSiteExporter.PageRenderer renderer = CourseSiteExporter.PageRenderer.COMPILED;
+        AssetPublisher.Strategy assetStrategy = AssetPublisher.Strategy.COPY;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals(OPTION_WORKERS)) {
+                    workers = Integer.parseInt(args[++i]);
+                } else if (args[i].equals(OPTION_WRITERS)) {
+                    writers = Integer.parseInt(args[++i]);
+                } else if (args[i].equals(OPTION_FULL)) {
+                    fullExport = true;
+                } else if (args[i].equals(OPTION_METRICS)) {
+                    printMetrics = true;
+                } else if (args[i].equals(OPTION_RENDERER)) {
+                    renderer = CourseSiteExporter.PageRenderer.valueOf(args[++i].toUpperCase(Locale.US));
+                } else if (args[i].equals(OPTION_ASSETS)) {
+                    assetStrategy = AssetPublisher.Strategy.valueOf(args[++i].toUpperCase(Locale.US));
+                } else {
+                    throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (RuntimeException re) {
+            System.out.println(USAGE);
+            System.exit(2);
+        }
+
+        // AND EXPORT EVERYTHING
+        CourseSiteExporter exporter = new CourseSiteExporter(PATH_BASE, PATH_SITES);
+        exporter.setIncrementalExport(!fullExport);
+        exporter.setWriterThreads(writers);
+        exporter.setPageRenderer(renderer);
+        exporter.setAssetStrategy(assetStrategy);
+        try {
+            CourseSiteBatchExporter batchExporter = new CourseSiteBatchExporter(exporter, workers);
+            batchExporter.setPrintMetrics(printMetrics);
+            int failures = batchExporter.exportAll(PATH_COURSES);
+            System.exit(failures == 0 ? 0 : 1);
+        } catch (InterruptedException ie) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package csb;
+
+import static csb.CSB_StartupConstants.PATH_BASE;
+import static csb.CSB_StartupConstants.PATH_COURSES;
+import static csb.CSB_StartupConstants.PATH_SITES;
+import csb.data.Course;
+import csb.data.Instructor;
+import csb.file.CourseSiteExporter;
+import csb.file.DepartmentExportScheduler;
+import csb.file.JsonCourseFileManager;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CourseSiteWatcher keeps the course sites up to date while the course files
+ * and the base site are edited outside of the application. It watches the
+ * courses data directory and the base site, and whenever something changes it
+ * re-exports just the courses whose files changed, or every course when a
+ * template, style sheet or image of the base site changed, logging how long
+ * after the change the sites were up to date again.
+ *
+ * Editors tend to save a file in several steps, so nothing is exported until
+ * things have been quiet for a little while, and all the changes made in the
+ * meantime are exported together. Since exports are incremental, only the
+ * pages that actually changed are written.
+ *
+ * Usage: CourseSiteWatcher [-workers N] [-debounce MS]
+ *
+ * where -workers sets how many pages are exported at the same time and
+ * -debounce sets how many milliseconds things must be quiet for before
+ * exporting.
+ */
+public class CourseSiteWatcher {
+
+    // COMMAND LINE OPTIONS
+    public static final String OPTION_WORKERS = "-workers";
+    public static final String OPTION_DEBOUNCE = "-debounce";
+    public static final String USAGE = "Usage: CourseSiteWatcher ["
+            + OPTION_WORKERS + " N] [" + OPTION_DEBOUNCE + " MS]";
+
+    // BY DEFAULT WE WAIT THIS LONG FOR THINGS TO SETTLE DOWN
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 500;
+
+    // THIS IS THE EXTENSION OF THE COURSE FILES WE'LL EXPORT
+    public static final String JSON_EXT = ".json";
+
+    // FILES STARTING WITH THIS, LIKE THE TEMPORARY FILES WRITTEN WHILE
+    // SAVING, ARE NEVER ANYTHING WE NEED TO EXPORT
+    public static final String HIDDEN_FILE_PREFIX = ".";
+
+    // THESE DO THE ACTUAL LOADING AND EXPORTING
+    private final JsonCourseFileManager fileManager;
+    private final DepartmentExportScheduler scheduler;
+
+    // WHAT WE'RE WATCHING
+    private final Path coursesDir;
+    private final Path baseDir;
+    private final WatchService watchService;
+
+    // HOW LONG THINGS MUST BE QUIET FOR BEFORE WE EXPORT
+    private final long debounceMillis;
+
+    /**
+     * This constructor sets up the watcher, which doesn't start watching until
+     * watch is called.
+     *
+     * @param exporter The exporter that will build the sites.
+     * @param workers The number of pages to export at the same time.
+     * @param initCoursesDir The directory containing the course JSON files.
+     * @param initBaseDir The directory containing the base site.
+     * @param initDebounceMillis How many milliseconds things must be quiet
+     * for before exporting.
+     *
+     * @throws IOException Thrown when the directories can't be watched.
+     */
+    public CourseSiteWatcher(CourseSiteExporter exporter, int workers, String initCoursesDir,
+            String initBaseDir, long initDebounceMillis) throws IOException {
+        fileManager = new JsonCourseFileManager();
+        scheduler = new DepartmentExportScheduler(exporter, workers);
+        coursesDir = Paths.get(initCoursesDir).toAbsolutePath().normalize();
+        baseDir = Paths.get(initBaseDir).toAbsolutePath().normalize();
+        debounceMillis = Math.max(0, initDebounceMillis);
+        watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    /**
+     * Exports every course once, so the sites start out up to date, and then
+     * watches for changes, exporting the affected courses after each one,
+     * until the watcher is closed.
+     *
+     * @throws IOException Thrown when the directories can't be watched.
+     * @throws InterruptedException Thrown if we are interrupted while
+     * waiting for changes.
+     */
+    public void watch() throws IOException, InterruptedException {
+        // THE BASE SITE'S STYLE SHEETS AND IMAGES ARE IN ITS SUBDIRECTORIES
+        register(coursesDir);
+        register(baseDir);
+        try (DirectoryStream<Path> subdirs = Files.newDirectoryStream(baseDir)) {
+            for (Path subdir : subdirs) {
+                if (Files.isDirectory(subdir)) {
+                    register(subdir);
+                }
+            }
+        }
+        System.out.println("WATCHING " + coursesDir + " AND " + baseDir);
+        rebuild(null, true, System.nanoTime());
+
+        try {
+            while (true) {
+                // WAIT FOR SOMETHING TO HAPPEN
+                WatchKey key = watchService.take();
+                long firstChangeTime = System.nanoTime();
+                TreeSet<Path> changedCourses = new TreeSet();
+                boolean baseChanged = false;
+
+                // AND THEN FOR THINGS TO SETTLE DOWN, GATHERING UP EVERYTHING
+                // THAT CHANGES IN THE MEANTIME
+                while (key != null) {
+                    baseChanged |= processEvents(key, changedCourses);
+                    key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                }
+                if (baseChanged || !changedCourses.isEmpty()) {
+                    rebuild(changedCourses, baseChanged, firstChangeTime);
+                }
+            }
+        } catch (ClosedWatchServiceException cwse) {
+            // WE'VE BEEN CLOSED, SO WE'RE DONE
+        }
+    }
+
+    /**
+     * Stops watching, which makes watch return, and stops the threads
+     * exporting pages once they're done.
+     *
+     * @throws IOException Thrown when the watch service can't be closed.
+     */
+    public void close() throws IOException {
+        watchService.close();
+        scheduler.shutdown();
+    }
+
+    // BELOW ARE ALL THE PRIVATE HELPER METHODS
+
+    private void register(Path dir) throws IOException {
+        dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+    // WORKS OUT WHAT A KEY'S EVENTS CHANGED, ADDING THE COURSE FILES THAT
+    // CHANGED TO changedCourses AND RETURNING true IF THE BASE SITE CHANGED
+    private boolean processEvents(WatchKey key, TreeSet<Path> changedCourses) throws IOException {
+        Path dir = (Path) key.watchable();
+        boolean baseChanged = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // WE MISSED SOME, SO WE HAVE TO ASSUME ANYTHING COULD HAVE CHANGED
+                baseChanged = true;
+                continue;
+            }
+            Path changed = dir.resolve((Path) event.context());
+            String name = changed.getFileName().toString();
+            if (name.startsWith(HIDDEN_FILE_PREFIX)) {
+                continue;
+            }
+            if (dir.equals(coursesDir)) {
+                if (name.endsWith(JSON_EXT)) {
+                    changedCourses.add(changed);
+                }
+            } else {
+                // A NEW DIRECTORY IN THE BASE SITE NEEDS WATCHING TOO
+                if ((event.kind() == StandardWatchEventKinds.ENTRY_CREATE)
+                        && dir.equals(baseDir) && Files.isDirectory(changed)) {
+                    register(changed);
+                }
+                baseChanged = true;
+            }
+        }
+        key.reset();
+        return baseChanged;
+    }
+
+    // EXPORTS THE CHANGED COURSES, OR ALL OF THEM, AND LOGS HOW IT WENT
+    private void rebuild(TreeSet<Path> changedCourses, boolean allCourses, long firstChangeTime) {
+        // FIGURE OUT WHICH COURSES TO EXPORT, NOTE THAT A COURSE FILE THAT'S
+        // GONE HAS NOTHING LEFT TO EXPORT
+        List<Path> courseFiles = new ArrayList();
+        if (allCourses) {
+            File[] allCourseFiles = coursesDir.toFile().listFiles(
+                    (File dir, String name) -> name.endsWith(JSON_EXT) && !name.startsWith(HIDDEN_FILE_PREFIX));
+            if (allCourseFiles != null) {
+                Arrays.sort(allCourseFiles);
+                for (File courseFile : allCourseFiles) {
+                    courseFiles.add(courseFile.toPath());
+                }
+            }
+        } else {
+            for (Path courseFile : changedCourses) {
+                if (Files.exists(courseFile)) {
+                    courseFiles.add(courseFile);
+                } else {
+                    System.out.println(courseFile.getFileName() + " WAS REMOVED, NOTHING TO EXPORT");
+                }
+            }
+        }
+
+        // LOAD THEM, SKIPPING ANY THAT CAN'T BE, LIKE ONE THAT'S STILL BEING
+        // WRITTEN, WHICH WILL BE EXPORTED ONCE IT'S BEEN SAVED AGAIN
+        List<Course> courses = new ArrayList();
+        for (Path courseFile : courseFiles) {
+            try {
+                Course course = new Course(new Instructor("", ""));
+                fileManager.loadCourse(course, courseFile.toString());
+                courses.add(course);
+            } catch (Exception e) {
+                System.out.println(courseFile.getFileName() + " COULD NOT BE LOADED: " + e);
+            }
+        }
+        if (courses.isEmpty()) {
+            return;
+        }
+
+        // AND EXPORT THEM
+        DepartmentExportScheduler.ExportReport report = scheduler.exportAll(courses);
+        for (DepartmentExportScheduler.ExportFailure failure : report.getFailures()) {
+            System.out.println(failure);
+        }
+        double latencyMillis = (System.nanoTime() - firstChangeTime) / 1e6;
+        String reason = (changedCourses == null) ? "STARTUP"
+                : allCourses ? "BASE SITE CHANGED" : changedCourses.size() + " COURSE FILE(S) CHANGED";
+        System.out.println(String.format("REBUILT AFTER %s: %s, UP TO DATE %.1f ms AFTER THE CHANGE",
+                reason, report, latencyMillis));
+    }
+
+    /**
+     * This is where watching begins.
+     *
+     * @param args The command line options, see USAGE.
+     */
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);
+
+        // READ THE OPTIONS
+        int workers = Runtime.getRuntime().availableProcessors();
+        long debounceMillis = DEFAULT_DEBOUNCE_MILLIS;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals(OPTION_WORKERS)) {
+                    workers = Integer.parseInt(args[++i]);
+                } else if (args[i].equals(OPTION_DEBOUNCE)) {
+                    debounceMillis = Long.parseLong(args[++i]);
+                } else {
+                    throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (RuntimeException re) {
+            System.out.println(USAGE);
+            System.exit(2);
+        }
+
+        // AND WATCH UNTIL WE'RE STOPPED
+        CourseSiteExporter exporter = new CourseSiteExporter(PATH_BASE, PATH_SITES);
+        try {
+            new CourseSiteWatcher(exporter, workers, PATH_COURSES, PATH_BASE, debounceMillis).watch();
+        } catch (IOException | InterruptedException e) {
+            System.out.println("WATCHING STOPPED: " + e);
+            System.exit(1);
+        }
+    }
+}
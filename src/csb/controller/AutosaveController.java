@@ -0,0 +1,468 @@
+package csb.controller;
+
+import csb.data.Course;
+import csb.data.CourseSnapshot;
+import csb.file.CourseFileManager;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javafx.application.Platform;
+
+/**
+ * This controller saves the course being edited in the background. Edits are
+ * coalesced such that a burst of them results in a single save at most once
+ * every autosave delay. A snapshot of the course is taken on the JavaFX thread,
+ * which only copies what changed since the last one, and then written by a
+ * dedicated I/O thread so that the UI never waits
+ * on the disk. All saves, including the ones the user asks for, go through that
+ * one thread so that an older copy of the course can never overwrite a newer
+ * one.
+ *
+ * Autosaves never touch the course files themselves, only the user saves
+ * those. Instead each course has a recovery file, named after its course file,
+ * in the recovery directory, which is removed again once the course is saved,
+ * or once its edits are thrown away. A recovery file that's still around when
+ * its course is loaded again, and is newer than the course file, holds edits
+ * that never got saved, like when the application crashed, so the user can be
+ * offered to restore them. A course that has never been saved or loaded has no
+ * course file yet, and so isn't autosaved at all, since there's no telling
+ * whose file it would be.
+ *
+ * Note that, other than the constructor, all methods of this class must be
+ * called on the JavaFX thread, which is also where the listener is notified.
+ */
+public class AutosaveController {
+
+    /**
+     * The states the autosaver can be in, as shown to the user.
+     */
+    public enum AutosaveState {
+        // NOTHING HAS BEEN EDITED SINCE THE LAST SAVE
+        IDLE,
+        // THERE ARE EDITS WAITING TO BE SAVED
+        PENDING,
+        // A SAVE IS BEING WRITTEN
+        SAVING,
+        // EVERYTHING HAS BEEN SAVED
+        SAVED,
+        // EVERYTHING HAS BEEN AUTOSAVED TO THE RECOVERY FILE, BUT NOT SAVED
+        AUTOSAVED,
+        // THE LAST SAVE DIDN'T WORK
+        FAILED
+    }
+
+    /**
+     * Gets told whenever the autosaver's state changes.
+     */
+    public interface AutosaveListener {
+
+        /**
+         * Called on the JavaFX thread when the state changes.
+         *
+         * @param state The new state.
+         * @param upToDate true if the last save contains every edit made so
+         * far, false otherwise.
+         */
+        public void autosaveStateChanged(AutosaveState state, boolean upToDate);
+    }
+
+    // BY DEFAULT WE'LL SAVE AT MOST ONCE EVERY 5 SECONDS
+    public static final long DEFAULT_AUTOSAVE_DELAY = 5000;
+
+    // THIS GUY KNOWS HOW TO WRITE COURSE DATA
+    private final CourseFileManager courseIO;
+
+    // HOW LONG TO WAIT AFTER AN EDIT BEFORE SAVING, IN MILLISECONDS
+    private final long autosaveDelay;
+
+    // WHERE THE RECOVERY FILES GO
+    private final String recoveryDir;
+
+    // THE RECOVERY FILE OF THE COURSE BEING EDITED, null IF IT HAS NO
+    // COURSE FILE YET AND SO CAN'T BE AUTOSAVED
+    private String recoveryFilePath;
+
+    // THE ONE THREAD THAT WRITES ALL THE SAVES
+    private final ScheduledExecutorService ioExecutor;
+
+    // THIS GETS TOLD ABOUT STATE CHANGES
+    private AutosaveListener listener;
+
+    // EVERY EDIT GETS A NUMBER SO WE KNOW WHICH ONES A SAVE, OR AN
+    // AUTOSAVE, INCLUDES
+    private long lastEdit;
+    private long lastSavedEdit;
+    private long lastAutosavedEdit;
+
+    // WE ONLY EVER HAVE ONE AUTOSAVE WAITING AT A TIME
+    private boolean autosaveScheduled;
+
+    // WHAT WE'RE CURRENTLY DOING
+    private AutosaveState state;
+
+    /**
+     * This constructor sets up the autosaver, but it won't save anything until
+     * told about an edit.
+     *
+     * @param initCourseIO The object that will be writing course data.
+     * @param initRecoveryDir The directory to write the recovery files to.
+     * @param initAutosaveDelay How long to wait after an edit before saving,
+     * in milliseconds.
+     */
+    public AutosaveController(CourseFileManager initCourseIO, String initRecoveryDir, long initAutosaveDelay) {
+        courseIO = initCourseIO;
+        recoveryDir = initRecoveryDir;
+        autosaveDelay = initAutosaveDelay;
+        ioExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        state = AutosaveState.IDLE;
+    }
+
+    /**
+     * Sets who gets told when the autosaver's state changes.
+     *
+     * @param initListener The listener to notify.
+     */
+    public void setListener(AutosaveListener initListener) {
+        listener = initListener;
+    }
+
+    /**
+     * Accessor method for what the autosaver is currently doing.
+     *
+     * @return The current state.
+     */
+    public AutosaveState getState() {
+        return state;
+    }
+
+    /**
+     * Accessor method for the recovery file of the course being edited.
+     *
+     * @return The path of the recovery file, or null if the course has no
+     * course file yet and so isn't autosaved.
+     */
+    public String getRecoveryFilePath() {
+        return recoveryFilePath;
+    }
+
+    /**
+     * Tells the autosaver that the course has been edited. An autosave will
+     * happen once the autosave delay has passed unless one is already waiting,
+     * in which case this edit will simply be included in it. Note that a
+     * course that has no course file yet is not autosaved.
+     *
+     * @param course The course that was edited.
+     */
+    public void courseEdited(Course course) {
+        lastEdit++;
+        if (state != AutosaveState.SAVING) {
+            setState(AutosaveState.PENDING);
+        }
+        scheduleAutosave(course);
+    }
+
+    /**
+     * Tells the autosaver that the course being edited has been replaced by a
+     * new one, so any edits still waiting to be saved no longer apply, and
+     * that the new course won't be autosaved until it has been saved. Note
+     * that the listener is not notified since whoever replaced the course
+     * knows best whether it's saved.
+     */
+    public void courseReplaced() {
+        lastSavedEdit = lastEdit;
+        lastAutosavedEdit = lastEdit;
+        recoveryFilePath = null;
+        state = AutosaveState.IDLE;
+    }
+
+    /**
+     * Tells the autosaver that the course being edited has been replaced by
+     * one loaded from a file, which is autosaved to a recovery file named
+     * after that file from now on. Any recovery file the course already had
+     * holds edits that weren't restored, so it's removed.
+     *
+     * @param courseFilePath The file the course was loaded from.
+     */
+    public void courseLoaded(String courseFilePath) {
+        courseReplaced();
+        recoveryFilePath = getRecoveryPath(courseFilePath);
+
+        // UNLESS WHAT WAS LOADED WAS THE RECOVERY FILE ITSELF
+        String staleRecoveryFilePath = recoveryFilePath;
+        if (!isSameFile(staleRecoveryFilePath, courseFilePath)) {
+            ioExecutor.execute(() -> {
+                try {
+                    Files.deleteIfExists(Paths.get(staleRecoveryFilePath));
+                } catch (IOException ioe) {
+                    // IT WILL JUST BE REPLACED BY THE NEXT AUTOSAVE
+                }
+            });
+        }
+    }
+
+    /**
+     * Tells the autosaver that the course being edited has been replaced by
+     * the one in the recovery file of a course file, rather than the one in
+     * the course file itself. The course is autosaved to that recovery file
+     * from now on, and since it has edits the course file doesn't, it isn't
+     * saved until the user saves it.
+     *
+     * @param courseFilePath The course file whose recovery file was loaded.
+     */
+    public void courseRecovered(String courseFilePath) {
+        courseReplaced();
+        recoveryFilePath = getRecoveryPath(courseFilePath);
+
+        // THE RECOVERED EDITS ARE ALREADY IN THE RECOVERY FILE
+        lastEdit++;
+        lastAutosavedEdit = lastEdit;
+        setState(AutosaveState.AUTOSAVED);
+    }
+
+    /**
+     * Checks if a course file has a recovery file with edits that were never
+     * saved to it, which is the case when the recovery file is newer.
+     *
+     * @param courseFilePath The course file to check.
+     *
+     * @return true if the course file's recovery file has unsaved edits,
+     * false otherwise.
+     */
+    public boolean hasNewerRecoveryFile(String courseFilePath) {
+        File courseFile = new File(courseFilePath);
+        File recoveryFile = new File(getRecoveryPath(courseFilePath));
+        return recoveryFile.isFile()
+                && !isSameFile(recoveryFile.getPath(), courseFilePath)
+                && (recoveryFile.lastModified() > courseFile.lastModified());
+    }
+
+    /**
+     * Gets the recovery file a course file's edits are autosaved to, which
+     * has the same name, but is in the recovery directory.
+     *
+     * @param courseFilePath The course file.
+     *
+     * @return The path of the course file's recovery file.
+     */
+    public String getRecoveryPath(String courseFilePath) {
+        return new File(recoveryDir, new File(courseFilePath).getName()).getPath();
+    }
+
+    /**
+     * Removes the recovery file of the course being edited, waiting for it to
+     * be gone. This is for when the user throws away the edits that haven't
+     * been saved, which should then not be offered to be restored later.
+     *
+     * @throws IOException Thrown when the recovery file cannot be removed.
+     */
+    public void discardRecoveryFile() throws IOException {
+        if (recoveryFilePath == null) {
+            return;
+        }
+        String discardedFilePath = recoveryFilePath;
+        Future<?> discard = ioExecutor.submit(() -> {
+            Files.deleteIfExists(Paths.get(discardedFilePath));
+            return null;
+        });
+        try {
+            discard.get();
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof IOException) {
+                throw (IOException) ee.getCause();
+            }
+            throw new IOException(ee.getCause());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ie);
+        }
+
+        // THE EDITS ARE NO LONGER IN THE RECOVERY FILE
+        lastAutosavedEdit = lastSavedEdit;
+        setState(getSettledState());
+    }
+
+    /**
+     * Saves the course right away, without waiting for the autosave delay.
+     * This still happens on the I/O thread, so it returns immediately.
+     *
+     * @param course The course to save.
+     * @param onSaved Called on the JavaFX thread once the save is done, with
+     * null if it worked or the problem if it didn't.
+     */
+    public void saveNow(Course course, Consumer<IOException> onSaved) {
+        startSave(course, onSaved);
+    }
+
+    /**
+     * Saves the course and waits for it to be written. This is for when what
+     * the user does next depends on the save having happened, like exiting.
+     *
+     * @param course The course to save.
+     *
+     * @throws IOException Thrown when the course cannot be saved.
+     */
+    public void saveAndWait(Course course) throws IOException {
+        long edit = lastEdit;
+        CourseSnapshot snapshot = course.snapshot();
+        String oldRecoveryFilePath = recoveryFilePath;
+        Future<String> save = ioExecutor.submit(() -> saveCourse(snapshot, oldRecoveryFilePath));
+        try {
+            recoveryFilePath = save.get();
+        } catch (ExecutionException ee) {
+            setState(AutosaveState.FAILED);
+            if (ee.getCause() instanceof IOException) {
+                throw (IOException) ee.getCause();
+            }
+            throw new IOException(ee.getCause());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ie);
+        }
+        lastSavedEdit = Math.max(lastSavedEdit, edit);
+        lastAutosavedEdit = Math.max(lastAutosavedEdit, edit);
+        setState(getSettledState());
+    }
+
+    // AUTOSAVES ONCE THE AUTOSAVE DELAY HAS PASSED, IF THE COURSE CAN BE
+    private void scheduleAutosave(Course course) {
+        if ((recoveryFilePath != null) && !autosaveScheduled) {
+            autosaveScheduled = true;
+            ioExecutor.schedule(() -> Platform.runLater(() -> autosave(course)),
+                    autosaveDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // CALLED ON THE FX THREAD WHEN THE AUTOSAVE DELAY IS UP
+    private void autosave(Course course) {
+        autosaveScheduled = false;
+        if ((recoveryFilePath != null) && (lastAutosavedEdit < lastEdit)) {
+            long edit = lastEdit;
+            CourseSnapshot snapshot = course.snapshot();
+            String autosaveFilePath = recoveryFilePath;
+            setState(AutosaveState.SAVING);
+            ioExecutor.execute(() -> {
+                IOException problem = null;
+                try {
+                    Files.createDirectories(Paths.get(recoveryDir));
+                    courseIO.saveCourse(snapshot.toCourse(), autosaveFilePath);
+                } catch (IOException ioe) {
+                    problem = ioe;
+                } catch (RuntimeException re) {
+                    // OTHERWISE THE EXECUTOR WOULD SWALLOW IT AND WE'D NEVER
+                    // FINISH SAVING
+                    problem = new IOException(re);
+                }
+                IOException result = problem;
+                Platform.runLater(() -> autosaveFinished(edit, result));
+            });
+        }
+    }
+
+    // CALLED ON THE FX THREAD ONCE AN AUTOSAVE HAS BEEN WRITTEN
+    private void autosaveFinished(long edit, IOException problem) {
+        if (problem != null) {
+            setState(AutosaveState.FAILED);
+        } else {
+            lastAutosavedEdit = Math.max(lastAutosavedEdit, edit);
+            setState(getSettledState());
+        }
+    }
+
+    // TAKES A SNAPSHOT OF THE COURSE AND HANDS IT TO THE I/O THREAD TO BE
+    // SAVED TO ITS COURSE FILE
+    private void startSave(Course course, Consumer<IOException> onSaved) {
+        long edit = lastEdit;
+        CourseSnapshot snapshot = course.snapshot();
+        String oldRecoveryFilePath = recoveryFilePath;
+        setState(AutosaveState.SAVING);
+        ioExecutor.execute(() -> {
+            IOException problem = null;
+            String newRecoveryFilePath = null;
+            try {
+                newRecoveryFilePath = saveCourse(snapshot, oldRecoveryFilePath);
+            } catch (IOException ioe) {
+                problem = ioe;
+            } catch (RuntimeException re) {
+                // OTHERWISE THE EXECUTOR WOULD SWALLOW IT AND WE'D NEVER
+                // FINISH SAVING
+                problem = new IOException(re);
+            }
+            IOException result = problem;
+            String savedRecoveryFilePath = newRecoveryFilePath;
+            Platform.runLater(() -> saveFinished(course, edit, savedRecoveryFilePath, result, onSaved));
+        });
+    }
+
+    // CALLED ON THE FX THREAD ONCE A SAVE HAS BEEN WRITTEN
+    private void saveFinished(Course course, long edit, String newRecoveryFilePath, IOException problem,
+            Consumer<IOException> onSaved) {
+        if (problem != null) {
+            setState(AutosaveState.FAILED);
+        } else {
+            // THE COURSE NOW HAS A COURSE FILE, SO IT CAN BE AUTOSAVED
+            recoveryFilePath = newRecoveryFilePath;
+            lastSavedEdit = Math.max(lastSavedEdit, edit);
+            lastAutosavedEdit = Math.max(lastAutosavedEdit, edit);
+
+            // EDITS MADE WHILE WE WERE SAVING STILL NEED AUTOSAVING, WHICH A
+            // COURSE SAVED FOR THE FIRST TIME WON'T HAVE SCHEDULED YET
+            if (lastAutosavedEdit < lastEdit) {
+                scheduleAutosave(course);
+            }
+            setState(getSettledState());
+        }
+        if (onSaved != null) {
+            onSaved.accept(problem);
+        }
+    }
+
+    // CALLED ON THE I/O THREAD TO SAVE A COURSE TO ITS COURSE FILE, AFTER
+    // WHICH ITS RECOVERY FILES ARE OUT OF DATE, SO THEY'RE REMOVED. THE
+    // COURSE'S NEW RECOVERY FILE IS RETURNED
+    private String saveCourse(CourseSnapshot snapshot, String oldRecoveryFilePath) throws IOException {
+        Course course = snapshot.toCourse();
+        String courseFilePath = courseIO.getCoursePath(course);
+        courseIO.saveCourse(course, courseFilePath);
+        String newRecoveryFilePath = getRecoveryPath(courseFilePath);
+        Files.deleteIfExists(Paths.get(newRecoveryFilePath));
+        if (oldRecoveryFilePath != null) {
+            Files.deleteIfExists(Paths.get(oldRecoveryFilePath));
+        }
+        return newRecoveryFilePath;
+    }
+
+    // CHECKS IF TWO PATHS ARE FOR THE SAME FILE, LIKE WHEN A RECOVERY FILE
+    // IS OPENED AS IF IT WERE A COURSE FILE
+    private boolean isSameFile(String path, String otherPath) {
+        return Paths.get(path).toAbsolutePath().normalize()
+                .equals(Paths.get(otherPath).toAbsolutePath().normalize());
+    }
+
+    // WORKS OUT WHAT STATE WE'RE IN ONCE NOTHING IS BEING WRITTEN
+    private AutosaveState getSettledState() {
+        if (lastSavedEdit == lastEdit) {
+            return AutosaveState.SAVED;
+        } else if (lastAutosavedEdit == lastEdit) {
+            return AutosaveState.AUTOSAVED;
+        }
+        return AutosaveState.PENDING;
+    }
+
+    private void setState(AutosaveState newState) {
+        state = newState;
+        if (listener != null) {
+            listener.autosaveStateChanged(state, lastSavedEdit == lastEdit);
+        }
+    }
+}
@@ -47,6 +47,19 @@ public class CourseEditController {
      * @param gui The user interface that requested the change.
      */
     public void handleCourseChangeRequest(CSB_GUI gui) {
+        handleCourseChangeRequest(gui, null);
+    }
+
+    /**
+     * This controller function is like the one above, but is for changes that
+     * tend to come in quick succession, like typing into a text field, which
+     * should be undone together.
+     * 
+     * @param gui The user interface that requested the change.
+     * @param editKey Identifies what was changed, like the text field, such
+     * that rapid changes to it are undone as one.
+     */
+    public void handleCourseChangeRequest(CSB_GUI gui, Object editKey) {
         if (enabled) {
             try {
                 // UPDATE THE COURSE, VERIFYING INPUT VALUES
@@ -55,7 +68,7 @@ public class CourseEditController {
                 // THE COURSE IS NOW DIRTY, MEANING IT'S BEEN 
                 // CHANGED SINCE IT WAS LAST SAVED, SO MAKE SURE
                 // THE SAVE BUTTON IS ENABLED
-                gui.getFileController().markAsEdited(gui);
+                gui.getFileController().markAsEdited(gui, editKey);
             } catch (Exception e) {
                 // SOMETHING WENT WRONG
                 ErrorHandler eH = ErrorHandler.getErrorHandler();
@@ -123,6 +136,7 @@ public class CourseEditController {
             else {
                 // MAKE SURE THE COURSE HAS THE CHANGES
                 gui.updateCourseInfo(gui.getDataManager().getCourse());
+                gui.getFileController().markAsEdited(gui);
             }
         }
     }
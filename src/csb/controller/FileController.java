@@ -2,17 +2,23 @@ package csb.controller;
 
 import static csb.CSB_PropertyType.COURSE_SAVED_MESSAGE;
 import static csb.CSB_PropertyType.NEW_COURSE_CREATED_MESSAGE;
+import static csb.CSB_PropertyType.RESTORE_AUTOSAVED_WORK_MESSAGE;
 import static csb.CSB_PropertyType.SAVE_UNSAVED_WORK_MESSAGE;
 import static csb.CSB_StartupConstants.JSON_FILE_PATH_LAST_INSTRUCTOR;
+import static csb.CSB_StartupConstants.PATH_AUTOSAVE;
 import static csb.CSB_StartupConstants.PATH_COURSES;
+import csb.controller.AutosaveController.AutosaveState;
 import csb.data.Course;
 import csb.data.CourseDataManager;
+import csb.data.CourseHistory;
 import csb.data.CoursePage;
+import csb.data.CourseSnapshot;
 import csb.data.Instructor;
 import csb.error.ErrorHandler;
 import csb.file.CourseFileManager;
 import csb.file.CourseSiteExporter;
 import csb.gui.CSB_GUI;
+import csb.gui.ExportProgressDialog;
 import csb.gui.MessageDialog;
 import csb.gui.WebBrowser;
 import csb.gui.YesNoCancelDialog;
@@ -40,6 +46,12 @@ public class FileController {
     // THIS GUY KNOWS HOW TO EXPORT COURSE SCHEDULE PAGES
     private CourseSiteExporter exporter;
 
+    // THIS GUY SAVES COURSE DATA IN THE BACKGROUND AS IT'S EDITED
+    private AutosaveController autosaver;
+
+    // THIS REMEMBERS EDITS SO THEY CAN BE UNDONE
+    private CourseHistory history;
+
     // THIS WILL PROVIDE FEEDBACK TO THE USER WHEN SOMETHING GOES WRONG
     ErrorHandler errorHandler;
     
@@ -49,6 +61,9 @@ public class FileController {
     
     // AND WE'LL USE THIS TO ASK YES/NO/CANCEL QUESTIONS
     YesNoCancelDialog yesNoCancelDialog;
+
+    // THIS SHOWS HOW AN EXPORT IS COMING ALONG
+    ExportProgressDialog exportProgressDialog;
     
     // WE'LL USE THIS TO GET OUR VERIFICATION FEEDBACK
     PropertiesManager properties;
@@ -67,6 +82,7 @@ public class FileController {
     public FileController(
             MessageDialog initMessageDialog,
             YesNoCancelDialog initYesNoCancelDialog,
+            ExportProgressDialog initExportProgressDialog,
             CourseFileManager initCourseIO,
             CourseSiteExporter initExporter) {
         // NOTHING YET
@@ -75,6 +91,10 @@ public class FileController {
         // KEEP THESE GUYS FOR LATER
         courseIO = initCourseIO;
         exporter = initExporter;
+
+        // ALL SAVING OF COURSES HAPPENS OFF THE UI THREAD
+        autosaver = new AutosaveController(courseIO, PATH_AUTOSAVE, AutosaveController.DEFAULT_AUTOSAVE_DELAY);
+        history = new CourseHistory(CourseHistory.DEFAULT_MAX_STEPS, CourseHistory.DEFAULT_COALESCE_WINDOW);
         
         // BE READY FOR ERRORS
         errorHandler = ErrorHandler.getErrorHandler();
@@ -82,6 +102,7 @@ public class FileController {
         // AND GET READY TO PROVIDE FEEDBACK
         messageDialog = initMessageDialog;
         yesNoCancelDialog = initYesNoCancelDialog;
+        exportProgressDialog = initExportProgressDialog;
         properties = PropertiesManager.getPropertiesManager();
     }
     
@@ -93,13 +114,80 @@ public class FileController {
      * @param gui The user interface editing the Course.
      */
     public void markAsEdited(CSB_GUI gui) {
+        markAsEdited(gui, null);
+    }
+
+    /**
+     * This method marks the current Course as edited, like the one above, but
+     * also lets rapid edits of the same thing be undone as one.
+     * 
+     * @param gui The user interface editing the Course.
+     * @param editKey Identifies what was edited, such that edits with the
+     * same key made in quick succession are undone together, or null if this
+     * edit should be undone on its own.
+     */
+    public void markAsEdited(CSB_GUI gui, Object editKey) {
+        Course course = gui.getDataManager().getCourse();
+
+        // REMEMBER THE EDIT SO IT CAN BE UNDONE
+        history.courseEdited(course, editKey);
+
+        // AND THEN DEAL WITH IT LIKE ANY OTHER CHANGE
+        courseChanged(gui, course);
+    }
+
+    /**
+     * This method undoes the last edit of the current Course, if there is one.
+     * 
+     * @param gui The user interface editing the Course.
+     */
+    public void handleUndoRequest(CSB_GUI gui) {
+        Course course = gui.getDataManager().getCourse();
+        if (history.undo(course)) {
+            gui.reloadCourse(course);
+            courseChanged(gui, course);
+        }
+    }
+
+    /**
+     * This method redoes the last undone edit of the current Course, if there
+     * is one.
+     * 
+     * @param gui The user interface editing the Course.
+     */
+    public void handleRedoRequest(CSB_GUI gui) {
+        Course course = gui.getDataManager().getCourse();
+        if (history.redo(course)) {
+            gui.reloadCourse(course);
+            courseChanged(gui, course);
+        }
+    }
+
+    // THE COURSE IS DIFFERENT THAN WHAT WAS LAST SAVED
+    private void courseChanged(CSB_GUI gui, Course course) {
         // THE Course OBJECT IS NOW DIRTY
         saved = false;
+
+        // IT WILL BE SAVED SHORTLY
+        autosaver.courseEdited(course);
         
         // LET THE UI KNOW
         gui.updateToolbarControls(saved);
     }
 
+    /**
+     * This method is called when the autosaver starts or finishes saving the
+     * current Course. The UI is then updated to reflect whether everything
+     * has now been saved.
+     *
+     * @param gui The user interface editing the Course.
+     * @param upToDate true if every edit has now been saved, false otherwise.
+     */
+    public void handleAutosaveStateChange(CSB_GUI gui, boolean upToDate) {
+        saved = upToDate;
+        gui.updateToolbarControls(saved);
+    }
+
     /**
      * This method starts the process of editing a new Course. If a course is
      * already being edited, it will prompt the user to save it first.
@@ -120,6 +208,8 @@ public class FileController {
                 // RESET THE DATA, WHICH SHOULD TRIGGER A RESET OF THE UI
                 CourseDataManager dataManager = gui.getDataManager();
                 dataManager.reset();
+                autosaver.courseReplaced();
+                history.reset(dataManager.getCourse());
                 saved = false;
 
                 // REFRESH THE GUI, WHICH WILL ENABLE AND DISABLE
@@ -170,55 +260,65 @@ public class FileController {
      * @param courseToSave The course being edited that is to be saved to a file.
      */
     public void handleSaveCourseRequest(CSB_GUI gui, Course courseToSave) {
-        try {
-            // SAVE IT TO A FILE
-            courseIO.saveCourse(courseToSave);
-
-            // MARK IT AS SAVED
-            saved = true;
-
-            // TELL THE USER THE FILE HAS BEEN SAVED
-            messageDialog.show(properties.getProperty(COURSE_SAVED_MESSAGE));
-
-            // AND REFRESH THE GUI, WHICH WILL ENABLE AND DISABLE
-            // THE APPROPRIATE CONTROLS
-            gui.updateToolbarControls(saved);
-        } catch (IOException ioe) {
-            errorHandler.handleSaveCourseError();
-        }
+        // SAVE IT TO A FILE, WHICH HAPPENS ON THE AUTOSAVE THREAD SO
+        // THAT IT CAN'T BE OVERWRITTEN BY AN OLDER AUTOSAVE. NOTE THAT
+        // THE AUTOSAVER WILL LET US KNOW TO REFRESH THE GUI
+        autosaver.saveNow(courseToSave, problem -> {
+            if (problem == null) {
+                // TELL THE USER THE FILE HAS BEEN SAVED
+                messageDialog.show(properties.getProperty(COURSE_SAVED_MESSAGE));
+            } else {
+                errorHandler.handleSaveCourseError();
+            }
+        });
     }
 
     /**
-     * This method will export the current course.
+     * This method will export the current course. The export happens on a
+     * worker thread while a dialog shows how it's going, and once it's done
+     * the exported schedule page is opened in a browser.
      * 
      * @param gui
      */
     public void handleExportCourseRequest(CSB_GUI gui) {
-        // EXPORT THE COURSE
+        // EXPORT A SNAPSHOT OF THE COURSE SO THAT IT CAN KEEP BEING
+        // EDITED WHILE THE EXPORT IS RUNNING
         CourseDataManager dataManager = gui.getDataManager();
         Course courseToExport = dataManager.getCourse();
+        CourseSnapshot snapshot = courseToExport.snapshot();
 
         // WE'LL NEED THIS TO LOAD THE EXPORTED PAGE FOR VIEWING
         String courseURL = exporter.getPageURLPath(courseToExport, CoursePage.SCHEDULE);
-        
-        // NOW GET THE EXPORTER
-        try {            
-            
-            // AND EXPORT THE COURSE
-            exporter.exportCourseSite(courseToExport);
-            
-            // AND THEN OPEN UP THE PAGE IN A BROWSER
-            Stage webBrowserStage = new Stage();
-            WebBrowser webBrowser = new WebBrowser(webBrowserStage, courseURL);
-            webBrowserStage.show();
-        }
-        // WE'LL HANDLE COURSE EXPORT PROBLEMS AND COURSE PAGE VIEWING
-        // PROBLEMS USING DIFFERENT ERROR MESSAGES
-        catch (MalformedURLException murle) {
-            errorHandler.handleViewSchedulePageError(courseURL);
-        } catch (Exception ioe) {
+
+        // THIS WILL DO THE ACTUAL EXPORTING
+        SiteExportTask exportTask = new SiteExportTask(exporter, snapshot);
+        exportTask.setOnSucceeded(e -> {
+            exportProgressDialog.done();
+            try {
+                // OPEN UP THE PAGE IN A BROWSER
+                Stage webBrowserStage = new Stage();
+                WebBrowser webBrowser = new WebBrowser(webBrowserStage, courseURL);
+                webBrowserStage.show();
+            }
+            // WE'LL HANDLE COURSE EXPORT PROBLEMS AND COURSE PAGE VIEWING
+            // PROBLEMS USING DIFFERENT ERROR MESSAGES
+            catch (MalformedURLException murle) {
+                errorHandler.handleViewSchedulePageError(courseURL);
+            }
+        });
+        exportTask.setOnFailed(e -> {
+            exportProgressDialog.done();
             errorHandler.handleExportCourseError(courseToExport);
-        }
+        });
+        exportTask.setOnCancelled(e -> {
+            exportProgressDialog.done();
+        });
+
+        // SHOW THE PROGRESS AND GET THE THREAD ROLLING
+        exportProgressDialog.show(exportTask);
+        Thread exportThread = new Thread(exportTask, "Site Export");
+        exportThread.setDaemon(true);
+        exportThread.start();
     }
 
     /**
@@ -273,7 +373,7 @@ public class FileController {
         if (selection.equals(YesNoCancelDialog.YES)) {
             // SAVE THE COURSE
             CourseDataManager dataManager = gui.getDataManager();
-            courseIO.saveCourse(dataManager.getCourse());
+            autosaver.saveAndWait(dataManager.getCourse());
             saved = true;
             
             // AND THE INSTRUCTOR INFO
@@ -283,6 +383,10 @@ public class FileController {
         // CALLED THIS THAT THE USER IS NOT INTERESTED ANYMORE
         else if (selection.equals(YesNoCancelDialog.CANCEL)) {
             return false;
+        } // IF THE USER SAID NO, THE AUTOSAVED EDITS ARE BEING
+        // THROWN AWAY TOO, SO DON'T OFFER TO RESTORE THEM LATER
+        else {
+            autosaver.discardRecoveryFile();
         }
 
         // IF THE USER SAID NO, WE JUST GO ON WITHOUT SAVING
@@ -293,9 +397,10 @@ public class FileController {
 
     /**
      * This helper method asks the user for a file to open. The user-selected
-     * file is then loaded and the GUI updated. Note that if the user cancels
-     * the open process, nothing is done. If an error occurs loading the file, a
-     * message is displayed, but nothing changes.
+     * file is then loaded and the GUI updated. If the file has autosaved edits
+     * that were never saved, the user is asked whether to restore them. Note
+     * that if the user cancels the open process, nothing is done. If an error
+     * occurs loading the file, a message is displayed, but nothing changes.
      */
     private void promptToOpen(CSB_GUI gui) {
         // AND NOW ASK THE USER FOR THE COURSE TO OPEN
@@ -306,10 +411,30 @@ public class FileController {
         // ONLY OPEN A NEW FILE IF THE USER SAYS OK
         if (selectedFile != null) {
             try {
+                // THE COURSE MAY HAVE EDITS THAT WERE AUTOSAVED BUT NEVER
+                // SAVED, LIKE WHEN WE CRASHED, SO OFFER TO RESTORE THEM
+                String courseFilePath = selectedFile.getAbsolutePath();
+                boolean restore = false;
+                if (autosaver.hasNewerRecoveryFile(courseFilePath)) {
+                    yesNoCancelDialog.show(properties.getProperty(RESTORE_AUTOSAVED_WORK_MESSAGE));
+                    String selection = yesNoCancelDialog.getSelection();
+                    if (selection.equals(YesNoCancelDialog.CANCEL)) {
+                        return;
+                    }
+                    restore = selection.equals(YesNoCancelDialog.YES);
+                }
+
                 Course courseToLoad = gui.getDataManager().getCourse();
-                courseIO.loadCourse(courseToLoad, selectedFile.getAbsolutePath());
+                if (restore) {
+                    courseIO.loadCourse(courseToLoad, autosaver.getRecoveryPath(courseFilePath));
+                    autosaver.courseRecovered(courseFilePath);
+                } else {
+                    courseIO.loadCourse(courseToLoad, courseFilePath);
+                    autosaver.courseLoaded(courseFilePath);
+                }
+                history.reset(courseToLoad);
                 gui.reloadCourse(courseToLoad);
-                saved = true;
+                saved = !restore;
                 gui.updateToolbarControls(saved);
                 Instructor lastInstructor = courseToLoad.getInstructor();
                 courseIO.saveLastInstructor(lastInstructor, JSON_FILE_PATH_LAST_INSTRUCTOR);
@@ -339,4 +464,23 @@ public class FileController {
     public boolean isSaved() {
         return saved;
     }
+
+    /**
+     * Accessor method for the autosaver, which the UI needs in order to
+     * show what it's doing.
+     *
+     * @return The object saving the current course in the background.
+     */
+    public AutosaveController getAutosaver() {
+        return autosaver;
+    }
+
+    /**
+     * Accessor method for what the autosaver is currently doing.
+     *
+     * @return The state of the autosaver.
+     */
+    public AutosaveState getAutosaveState() {
+        return autosaver.getState();
+    }
 }
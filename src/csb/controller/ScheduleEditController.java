@@ -51,6 +51,7 @@ public class ScheduleEditController {
             
             // AND ADD IT AS A ROW TO THE TABLE
             course.addScheduleItem(si);
+            gui.getFileController().markAsEdited(gui);
         }
         else {
             // THE USER MUST HAVE PRESSED CANCEL, SO
@@ -70,6 +71,8 @@ public class ScheduleEditController {
             itemToEdit.setDescription(si.getDescription());
             itemToEdit.setDate(si.getDate());
             itemToEdit.setLink(si.getLink());
+            course.repositionScheduleItem(itemToEdit);
+            gui.getFileController().markAsEdited(gui);
         }
         else {
             // THE USER MUST HAVE PRESSED CANCEL, SO
@@ -87,6 +90,7 @@ public class ScheduleEditController {
         // IF THE USER SAID YES, THEN SAVE BEFORE MOVING ON
         if (selection.equals(YesNoCancelDialog.YES)) { 
             gui.getDataManager().getCourse().removeScheduleItem(itemToRemove);
+            gui.getFileController().markAsEdited(gui);
         }
     }
     
@@ -105,6 +109,7 @@ public class ScheduleEditController {
             
             // AND ADD IT AS A ROW TO THE TABLE
             course.addLecture(li);
+            gui.getFileController().markAsEdited(gui);
         }
         else {
             // THE USER MUST HAVE PRESSED CANCEL, SO
@@ -125,6 +130,7 @@ public class ScheduleEditController {
             // UPDATE THE SCHEDULE ITEM
             Lecture li = ld.getLecture();
             itemToEdit.setTopic(li.getTopic());
+            gui.getFileController().markAsEdited(gui);
         }
         else {
             // THE USER MUST HAVE PRESSED CANCEL, SO
@@ -144,6 +150,7 @@ public class ScheduleEditController {
         // IF THE USER SAID YES, THEN SAVE BEFORE MOVING ON
         if (selection.equals(YesNoCancelDialog.YES)) { 
             gui.getDataManager().getCourse().removeLecture(itemToRemove);
+            gui.getFileController().markAsEdited(gui);
         }
     }
     
@@ -158,6 +165,7 @@ public class ScheduleEditController {
         Lecture aboveItem = lectures.get(itemIndex-1);
         lectures.set(itemIndex, aboveItem);
         lectures.set(itemIndex-1, temp);
+        gui.getFileController().markAsEdited(gui);
     }
     
     
@@ -170,6 +178,7 @@ public class ScheduleEditController {
         Lecture belowItem = lectures.get(itemIndex+1);
         lectures.set(itemIndex, belowItem);
         lectures.set(itemIndex+1, temp);
+        gui.getFileController().markAsEdited(gui);
     }
     
     
@@ -185,6 +194,7 @@ public class ScheduleEditController {
             
             // AND ADD IT AS A ROW TO THE TABLE
             course.addAssignment(ai);
+            gui.getFileController().markAsEdited(gui);
         }
         else {
             // THE USER MUST HAVE PRESSED CANCEL, SO
@@ -206,6 +216,7 @@ public class ScheduleEditController {
             //assignment.setTopics(ai.getTopics());
             course.removeAssignment(assignment);
             course.addAssignment(ai);
+            gui.getFileController().markAsEdited(gui);
         }
         else {
             // THE USER MUST HAVE PRESSED CANCEL, SO
@@ -223,6 +234,7 @@ public class ScheduleEditController {
         // IF THE USER SAID YES, THEN SAVE BEFORE MOVING ON
         if (selection.equals(YesNoCancelDialog.YES)) { 
             gui.getDataManager().getCourse().removeAssignment(assignment);
+            gui.getFileController().markAsEdited(gui);
         }
     }
     
@@ -0,0 +1,94 @@
+package csb.controller;
+
+import csb.data.Course;
+import csb.data.CoursePage;
+import csb.data.CourseSnapshot;
+import csb.file.CourseSiteExporter;
+import csb.file.ExportProgressListener;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javafx.concurrent.Task;
+
+/**
+ * This task exports a course's site on a worker thread, turning the progress
+ * events of the CourseSiteExporter into the task's progress and message so
+ * that they can be shown in the UI. Each page counts as two steps, building
+ * it and writing it. Cancelling the task stops the export at the next step.
+ * The course is exported from a snapshot, so it may be edited while this runs.
+ */
+public class SiteExportTask extends Task<Void> implements ExportProgressListener {
+
+    // THESE ARE USED FOR BUILDING THE MESSAGES WE REPORT
+    public static final String EXPORTING_TEXT = "Exporting ";
+    public static final String UP_TO_DATE_TEXT = "The Course Site is already up to date";
+
+    // THE EXPORTER AND WHAT IT'S EXPORTING
+    private final CourseSiteExporter exporter;
+    private final CourseSnapshot courseToExport;
+
+    // PAGES ARE EXPORTED AT THE SAME TIME, SO THESE ARE SHARED BY
+    // ALL THE PAGE EXPORT THREADS
+    private volatile int pagesToExport;
+    private final AtomicInteger stepsDone;
+    private final AtomicInteger pagesWritten;
+    private final AtomicLong bytesWritten;
+    private volatile long startTime;
+
+    /**
+     * This constructor sets up the task, but nothing is exported until it is
+     * run.
+     *
+     * @param initExporter The exporter that will build the site.
+     * @param initCourseToExport A snapshot of the course whose site to build.
+     */
+    public SiteExportTask(CourseSiteExporter initExporter, CourseSnapshot initCourseToExport) {
+        exporter = initExporter;
+        courseToExport = initCourseToExport;
+        stepsDone = new AtomicInteger();
+        pagesWritten = new AtomicInteger();
+        bytesWritten = new AtomicLong();
+    }
+
+    @Override
+    protected Void call() throws Exception {
+        startTime = System.nanoTime();
+        exporter.exportCourseSite(courseToExport.toCourse(), this);
+        return null;
+    }
+
+    // NOTE THAT isCancelled IS PROVIDED BY THE TASK ITSELF, SO CANCELLING
+    // THE TASK IS ALL IT TAKES TO STOP THE EXPORTER
+
+    @Override
+    public void exportStarted(Course course, int initPagesToExport) {
+        pagesToExport = initPagesToExport;
+        if (pagesToExport == 0) {
+            updateProgress(1, 1);
+            updateMessage(UP_TO_DATE_TEXT);
+        } else {
+            updateProgress(0, pagesToExport * 2);
+        }
+    }
+
+    @Override
+    public void pageStarted(CoursePage page) {
+        updateMessage(EXPORTING_TEXT + page);
+    }
+
+    @Override
+    public void pageBuilt(CoursePage page) {
+        updateProgress(stepsDone.incrementAndGet(), pagesToExport * 2);
+    }
+
+    @Override
+    public void pageWritten(CoursePage page, long pageBytes) {
+        updateProgress(stepsDone.incrementAndGet(), pagesToExport * 2);
+
+        // REPORT HOW FAST WE'RE GOING
+        int written = pagesWritten.incrementAndGet();
+        long bytes = bytesWritten.addAndGet(pageBytes);
+        double seconds = Math.max(System.nanoTime() - startTime, 1) / 1e9;
+        updateMessage(String.format("Exported %d of %d pages, %.1f KB at %.1f KB/s",
+                written, pagesToExport, bytes / 1024.0, bytes / 1024.0 / seconds));
+    }
+}
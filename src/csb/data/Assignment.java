@@ -1,7 +1,5 @@
 package csb.data;
 
-import java.net.MalformedURLException;
-import java.net.URL;
 import java.time.LocalDate;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
@@ -9,20 +7,50 @@ import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 
 /**
- *
+ * An assignment's data is kept in plain fields, with its date stored as a day
+ * number, and the properties the UI binds to are only made the first time
+ * they are asked for.
+ * 
  * @author McKillaGorilla
  */
 public class Assignment implements Comparable{
-    final StringProperty name;
-    final StringProperty topics;
-    final ObjectProperty<LocalDate> date;
+    String name;
+    String topics;
+    int date;
+    StringProperty nameProperty;
+    StringProperty topicsProperty;
+    ObjectProperty<LocalDate> dateProperty;
+    
+    // THIS GOES UP WITH EVERY CHANGE
+    int modCount;
+    
+    // THE DATE INDEX OF THE COURSE THIS ASSIGNMENT IS IN, IF ANY
+    DateIndex<Assignment> dateIndex;
+    
     public static final String DEFAULT_NAME = "<ENTER NAME>";
     public static final String DEFAULT_TOPICS = "<ENTER TOPICS>";
     
+    // THIS STANDS FOR NOT HAVING A DATE
+    static final int NO_DATE = Integer.MIN_VALUE;
+    
     public Assignment() {
-        name = new SimpleStringProperty(DEFAULT_NAME);
-        topics = new SimpleStringProperty(DEFAULT_NAME);
-        date = new SimpleObjectProperty(LocalDate.now());
+        name = DEFAULT_NAME;
+        topics = DEFAULT_NAME;
+        date = toDay(LocalDate.now());
+    }
+    
+    // MAKES A COPY OF THE ASSIGNMENT'S DATA THAT ISN'T IN ANY COURSE
+    Assignment(Assignment assignment) {
+        name = assignment.name;
+        topics = assignment.topics;
+        date = assignment.date;
+    }
+    
+    // GIVES THIS ASSIGNMENT THE DATA OF ANOTHER ONE
+    void restore(Assignment assignment) {
+        setName(assignment.name);
+        setTopics(assignment.topics);
+        setDate(assignment.getDate());
     }
     
     public void reset() {
@@ -32,39 +60,79 @@ public class Assignment implements Comparable{
     }
     
     public String getName() {
-        return name.get();
+        return name;
     }
     
     public void setName(String initName) {
-        name.set(initName);
+        if (nameProperty != null) {
+            nameProperty.set(initName);
+        } else {
+            name = initName;
+            modCount++;
+        }
     }
     
     public StringProperty nameProperty() {
-        return name;
+        if (nameProperty == null) {
+            nameProperty = new SimpleStringProperty(this, "name", name) {
+                @Override
+                protected void invalidated() {
+                    name = get();
+                    modCount++;
+                }
+            };
+        }
+        return nameProperty;
     }
     
     public LocalDate getDate() {
-        return (LocalDate)date.get();
+        return toDate(date);
     }
     
     public void setDate(LocalDate initDate) {
-        date.set(initDate);
+        if (dateProperty != null) {
+            dateProperty.set(initDate);
+        } else {
+            updateDate(initDate);
+        }
     }
     
     public ObjectProperty<LocalDate> dateProperty() {
-        return date;
+        if (dateProperty == null) {
+            dateProperty = new SimpleObjectProperty<LocalDate>(this, "date", getDate()) {
+                @Override
+                protected void invalidated() {
+                    updateDate(get());
+                }
+            };
+        }
+        return dateProperty;
     }
    
     public String getTopics() {
-        return topics.get();
+        return topics;
     }
     
     public void setTopics(String initTopics) {
-        topics.set(initTopics);
+        if (topicsProperty != null) {
+            topicsProperty.set(initTopics);
+        } else {
+            topics = initTopics;
+            modCount++;
+        }
     }
     
     public StringProperty topicsProperty() {
-        return topics;
+        if (topicsProperty == null) {
+            topicsProperty = new SimpleStringProperty(this, "topics", topics) {
+                @Override
+                protected void invalidated() {
+                    topics = get();
+                    modCount++;
+                }
+            };
+        }
+        return topicsProperty;
     }
     
     public int compareTo(Object obj) {
@@ -72,5 +140,21 @@ public class Assignment implements Comparable{
         return getDate().compareTo(otherItem.getDate());
     }
     
- 
+    // CHANGES THE DATE, LETTING THE DATE INDEX KNOW
+    private void updateDate(LocalDate newDate) {
+        LocalDate oldDate = getDate();
+        date = toDay(newDate);
+        modCount++;
+        if (dateIndex != null) {
+            dateIndex.dateChanged(this, oldDate);
+        }
+    }
+    
+    static int toDay(LocalDate date) {
+        return (date == null) ? NO_DATE : (int) date.toEpochDay();
+    }
+    
+    static LocalDate toDate(int day) {
+        return (day == NO_DATE) ? null : LocalDate.ofEpochDay(day);
+    }
 }
\ No newline at end of file
@@ -3,9 +3,11 @@ package csb.data;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
@@ -27,14 +29,21 @@ public class Course {
     Instructor instructor;
     LocalDate startingMonday;
     LocalDate endingFriday;
-    List<CoursePage> pages;
-    List<DayOfWeek> lectureDays;
+    EnumSet<CoursePage> pages;
+    EnumSet<DayOfWeek> lectureDays;
 
     // THESE ARE THE THINGS WE'LL PUT IN OUR SCHEDULE PAGE
     ObservableList<ScheduleItem> scheduleItems;
     ObservableList<Lecture> lectures;
     ObservableList<Assignment> assignments;
 
+    // AND THESE LET US QUICKLY FIND THEM BY DATE
+    DateIndex<ScheduleItem> scheduleItemIndex;
+    DateIndex<Assignment> assignmentIndex;
+
+    // THE LAST SNAPSHOT TAKEN, WHICH THE NEXT ONE WILL SHARE WHAT IT CAN WITH
+    CourseSnapshot lastSnapshot;
+
     /**
      * Constructor for setting up a Course, it initializes the Instructor, which
      * would have already been loaded from a file.
@@ -45,8 +54,10 @@ public class Course {
      */
     public Course(Instructor initInstructor) {
         // INITIALIZE THIS OBJECT'S DATA STRUCTURES
-        pages = new ArrayList();
-        lectureDays = new ArrayList();
+        // NOTE THAT THESE ALWAYS GO THROUGH THEIR VALUES IN THE ORDER
+        // THE ENUMS DECLARE THEM, NO MATTER WHAT ORDER THEY WERE ADDED IN
+        pages = EnumSet.noneOf(CoursePage.class);
+        lectureDays = EnumSet.noneOf(DayOfWeek.class);
 
         // AND KEEP THE INSTRUCTOR
         instructor = initInstructor;
@@ -55,6 +66,12 @@ public class Course {
         scheduleItems = FXCollections.observableArrayList();
         lectures = FXCollections.observableArrayList();
         assignments = FXCollections.observableArrayList();
+
+        // THESE KEEP THEMSELVES UP TO DATE AS THE LISTS CHANGE
+        scheduleItemIndex = new DateIndex<>(scheduleItems, ScheduleItem::getDate,
+                (si, index) -> si.dateIndex = index);
+        assignmentIndex = new DateIndex<>(assignments, Assignment::getDate,
+                (a, index) -> a.dateIndex = index);
     }
 
     // BELOW ARE ALL THE ACCESSOR METHODS FOR A COURSE
@@ -137,40 +154,32 @@ public class Course {
         pages.add(pageToAdd);
     }
 
-    public List<CoursePage> getPages() {
+    public Set<CoursePage> getPages() {
         return pages;
     }
 
     public void selectPage(CoursePage coursePage) {
-        if (!pages.contains(coursePage)) {
-            pages.add(coursePage);
-        }
+        pages.add(coursePage);
     }
 
     public void unselectPage(CoursePage coursePage) {
-        if (pages.contains(coursePage)) {
-            pages.remove(coursePage);
-        }
+        pages.remove(coursePage);
     }
 
-    public List<DayOfWeek> getLectureDays() {
+    public Set<DayOfWeek> getLectureDays() {
         return lectureDays;
     }
 
     // BELOW ARE ADDITIONAL METHODS FOR UPDATING A COURSE
     public void selectLectureDay(DayOfWeek dayOfWeek) {
-        if (!lectureDays.contains(dayOfWeek)) {
+        if (!lectureDays.remove(dayOfWeek)) {
             lectureDays.add(dayOfWeek);
-        } else {
-            lectureDays.remove(dayOfWeek);
         }
     }
 
     public void selectLectureDay(DayOfWeek dayOfWeek, boolean isSelected) {
         if (isSelected) {
-            if (!lectureDays.contains(dayOfWeek)) {
-                lectureDays.add(dayOfWeek);
-            }
+            lectureDays.add(dayOfWeek);
         } else {
             lectureDays.remove(dayOfWeek);
         }
@@ -205,8 +214,49 @@ public class Course {
     }
 
     public void addScheduleItem(ScheduleItem si) {
-        scheduleItems.add(si);
-        Collections.sort(scheduleItems);
+        // THE ITEMS ARE KEPT IN ORDER OF DATE, SO RATHER THAN SORTING
+        // THEM ALL AGAIN WE JUST PUT THE NEW ONE WHERE IT BELONGS
+        scheduleItems.add(findScheduleItemIndex(si.getDate()), si);
+    }
+
+    public void addScheduleItems(Collection<ScheduleItem> itemsToAdd) {
+        // SORT EVERYTHING ONCE AND THEN REPLACE THE LIST IN A SINGLE CHANGE
+        ArrayList<ScheduleItem> allItems = new ArrayList(scheduleItems.size() + itemsToAdd.size());
+        allItems.addAll(scheduleItems);
+        allItems.addAll(itemsToAdd);
+        Collections.sort(allItems);
+        scheduleItems.setAll(allItems);
+    }
+
+    public void setScheduleItems(Collection<ScheduleItem> newScheduleItems) {
+        // REPLACES ALL THE ITEMS IN A SINGLE CHANGE, SORTING THEM FIRST
+        ArrayList<ScheduleItem> sortedItems = new ArrayList(newScheduleItems);
+        Collections.sort(sortedItems);
+        scheduleItems.setAll(sortedItems);
+    }
+
+    public void repositionScheduleItem(ScheduleItem si) {
+        // THIS IS FOR WHEN AN ITEM'S DATE HAS BEEN CHANGED
+        if (scheduleItems.remove(si)) {
+            addScheduleItem(si);
+        }
+    }
+
+    // FINDS WHERE AN ITEM WITH THE DATE BELONGS, WHICH IS AFTER ALL THE
+    // ITEMS ON OR BEFORE THAT DATE SO THAT ITEMS ON THE SAME DATE STAY
+    // IN THE ORDER THEY WERE ADDED
+    private int findScheduleItemIndex(LocalDate date) {
+        int low = 0;
+        int high = scheduleItems.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (scheduleItems.get(mid).getDate().isAfter(date)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
     }
 
     public ObservableList<ScheduleItem> getScheduleItems() {
@@ -221,6 +271,11 @@ public class Course {
         lectures.add(l);
     }
 
+    public void setLectures(Collection<Lecture> newLectures) {
+        // REPLACES ALL THE LECTURES IN A SINGLE CHANGE
+        lectures.setAll(newLectures);
+    }
+
     public ObservableList<Lecture> getLectures() {
         return lectures;
     }
@@ -233,6 +288,11 @@ public class Course {
         assignments.add(a);
     }
 
+    public void setAssignments(Collection<Assignment> newAssignments) {
+        // REPLACES ALL THE ASSIGNMENTS IN A SINGLE CHANGE
+        assignments.setAll(newAssignments);
+    }
+
     public ObservableList<Assignment> getAssignments() {
         return assignments;
     }
@@ -241,22 +301,47 @@ public class Course {
         assignments.remove(assignmentToRemove);
     }
 
-    public HashMap<LocalDate, ScheduleItem> getScheduleItemMappings() {
-        // GET THE SCHEDULE ITEM DATES FOR QUICK LOOKUP
-        HashMap<LocalDate, ScheduleItem> holidayDates = new HashMap();
-        for (ScheduleItem scheduleItem : scheduleItems) {
-            holidayDates.put(scheduleItem.getDate(), scheduleItem);
-        }
-        return holidayDates;
+    // THESE LOOK UP SCHEDULE ITEMS AND ASSIGNMENTS BY DATE, NOTE THAT
+    // THERE MAY BE ANY NUMBER OF EITHER ON THE SAME DATE
+    public List<ScheduleItem> getScheduleItemsOn(LocalDate date) {
+        return scheduleItemIndex.getItemsOn(date);
     }
-    
-    public HashMap<LocalDate, Assignment> getAssignmentMappings() {
-        // GET THE SCHEDULE ITEM DATES FOR QUICK LOOKUP
-        HashMap<LocalDate, Assignment> assignmentDates = new HashMap();
-        for (Assignment assignment : assignments) {
-            assignmentDates.put(assignment.getDate(), assignment);
-        }
-        return assignmentDates;
+
+    public List<ScheduleItem> getScheduleItemsBetween(LocalDate firstDate, LocalDate lastDate) {
+        return scheduleItemIndex.getItemsBetween(firstDate, lastDate);
+    }
+
+    public List<Assignment> getAssignmentsOn(LocalDate date) {
+        return assignmentIndex.getItemsOn(date);
+    }
+
+    public List<Assignment> getAssignmentsBetween(LocalDate firstDate, LocalDate lastDate) {
+        return assignmentIndex.getItemsBetween(firstDate, lastDate);
+    }
+
+    /**
+     * Takes a snapshot of this course's current state that other threads can
+     * use while this course continues to be edited. Only what has changed
+     * since the last snapshot gets copied. Note that this must be called on
+     * the thread that edits the course.
+     *
+     * @return The snapshot, which is the same one as last time if nothing has
+     * changed since.
+     */
+    public CourseSnapshot snapshot() {
+        lastSnapshot = CourseSnapshot.capture(this, lastSnapshot);
+        return lastSnapshot;
+    }
+
+    /**
+     * Makes a deep copy of this course, sharing nothing with it that can be
+     * changed. The copy can therefore be safely used by another thread while
+     * this course continues to be edited.
+     *
+     * @return A detached copy of this course.
+     */
+    public Course copy() {
+        return snapshot().toCourse();
     }
     
     
@@ -0,0 +1,162 @@
+package csb.data;
+
+import java.util.ArrayDeque;
+
+/**
+ * This class remembers the states a course has been through as it's edited so
+ * that edits can be undone and redone. Each step is a CourseSnapshot, and since
+ * a snapshot shares every item that didn't change with the one before it, a
+ * step only costs as much memory as what was actually edited.
+ *
+ * Rapid edits of the same thing, like typing a word into a text field one
+ * letter at a time, can be coalesced into a single step by giving them the same
+ * edit key. Edits with the same key made within the coalescing window of one
+ * another are undone together.
+ *
+ * Note that all methods of this class must be called on the thread that edits
+ * the course.
+ */
+public class CourseHistory {
+
+    // BY DEFAULT WE'LL REMEMBER THIS MANY STEPS
+    public static final int DEFAULT_MAX_STEPS = 200;
+
+    // AND COALESCE EDITS THAT COME WITHIN A SECOND OF ONE ANOTHER
+    public static final long DEFAULT_COALESCE_WINDOW = 1000;
+
+    // THE MOST STEPS WE'LL KEEP, OLDER ONES ARE FORGOTTEN
+    private final int maxSteps;
+
+    // HOW CLOSE TOGETHER EDITS WITH THE SAME KEY MUST BE TO BE
+    // COALESCED, IN MILLISECONDS
+    private final long coalesceWindow;
+
+    // THE STATES WE CAN GO BACK TO, AND FORWARD TO, MOST RECENT FIRST
+    private final ArrayDeque<CourseSnapshot> undoSteps;
+    private final ArrayDeque<CourseSnapshot> redoSteps;
+
+    // THE STATE THE COURSE WAS IN AFTER THE LAST EDIT
+    private CourseSnapshot current;
+
+    // WHAT THE LAST EDIT WAS TO, AND WHEN, SO WE KNOW WHAT TO COALESCE
+    private Object lastEditKey;
+    private long lastEditTime;
+
+    /**
+     * This constructor sets up an empty history.
+     *
+     * @param initMaxSteps The most steps to remember.
+     * @param initCoalesceWindow How close together edits with the same key
+     * must be to be coalesced, in milliseconds.
+     */
+    public CourseHistory(int initMaxSteps, long initCoalesceWindow) {
+        maxSteps = initMaxSteps;
+        coalesceWindow = initCoalesceWindow;
+        undoSteps = new ArrayDeque();
+        redoSteps = new ArrayDeque();
+    }
+
+    /**
+     * Forgets everything and starts the history over from the course as it is
+     * now. This is for when the course has been newly created or loaded.
+     *
+     * @param course The course whose history this is.
+     */
+    public void reset(Course course) {
+        undoSteps.clear();
+        redoSteps.clear();
+        current = course.snapshot();
+        lastEditKey = null;
+    }
+
+    /**
+     * Records an edit of the course as a step that can be undone.
+     *
+     * @param course The course that was edited.
+     * @param editKey Identifies what was edited such that rapid edits of the
+     * same thing become a single step, or null if this edit should always be
+     * its own step.
+     */
+    public void courseEdited(Course course, Object editKey) {
+        CourseSnapshot edited = course.snapshot();
+        if (edited == current) {
+            // NOTHING ACTUALLY CHANGED
+            return;
+        }
+        long now = System.currentTimeMillis();
+        boolean coalesce = (editKey != null)
+                && editKey.equals(lastEditKey)
+                && (now - lastEditTime <= coalesceWindow);
+        if (!coalesce && (current != null)) {
+            undoSteps.push(current);
+            if (undoSteps.size() > maxSteps) {
+                undoSteps.removeLast();
+            }
+        }
+        current = edited;
+        redoSteps.clear();
+        lastEditKey = editKey;
+        lastEditTime = now;
+    }
+
+    /**
+     * Accessor method for testing whether there is an edit to undo.
+     *
+     * @return true if undo would do something, false otherwise.
+     */
+    public boolean canUndo() {
+        return !undoSteps.isEmpty();
+    }
+
+    /**
+     * Accessor method for testing whether there is an undone edit to redo.
+     *
+     * @return true if redo would do something, false otherwise.
+     */
+    public boolean canRedo() {
+        return !redoSteps.isEmpty();
+    }
+
+    /**
+     * Puts the course back the way it was before the last edit.
+     *
+     * @param course The course whose history this is.
+     *
+     * @return true if an edit was undone, false if there was none to undo.
+     */
+    public boolean undo(Course course) {
+        if (undoSteps.isEmpty()) {
+            return false;
+        }
+        redoSteps.push(course.snapshot());
+        restore(course, undoSteps.pop());
+        return true;
+    }
+
+    /**
+     * Makes the last undone edit again.
+     *
+     * @param course The course whose history this is.
+     *
+     * @return true if an edit was redone, false if there was none to redo.
+     */
+    public boolean redo(Course course) {
+        if (redoSteps.isEmpty()) {
+            return false;
+        }
+        undoSteps.push(course.snapshot());
+        restore(course, redoSteps.pop());
+        return true;
+    }
+
+    private void restore(Course course, CourseSnapshot step) {
+        step.restoreTo(course);
+
+        // THE ITEMS THAT WERE PUT BACK HAVE BEEN CHANGED AGAIN, SO WE TAKE
+        // A NEW SNAPSHOT TO COMPARE THE NEXT EDIT WITH
+        current = course.snapshot();
+
+        // WHATEVER COMES NEXT IS A NEW STEP
+        lastEditKey = null;
+    }
+}
@@ -0,0 +1,283 @@
+package csb.data;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+import javafx.collections.ObservableList;
+
+/**
+ * A CourseSnapshot is a frozen picture of a course at one moment, which can be
+ * handed to another thread, like the ones that save and export, while the
+ * course itself continues to be edited. Taking one is cheap since it shares as
+ * much as it can with the snapshot taken before it. Every schedule item,
+ * lecture and assignment that hasn't changed since then keeps the frozen copy
+ * it already had, so only the items that were actually edited get copied, and
+ * if none of a list's items changed the whole list is shared.
+ *
+ * Snapshots are taken with Course.snapshot on the thread that edits the course
+ * but, once taken, nothing in them ever changes, so they may be used by any
+ * number of threads at the same time. They can also be used to put the course
+ * back the way it was, which is how edits get undone.
+ */
+public final class CourseSnapshot {
+
+    // THE COURSE DETAILS, ALL OF WHICH ARE IMMUTABLE
+    private final Subject subject;
+    private final int number;
+    private final String title;
+    private final Semester semester;
+    private final int year;
+    private final String instructorName;
+    private final String instructorHomepageURL;
+    private final LocalDate startingMonday;
+    private final LocalDate endingFriday;
+    private final Set<CoursePage> pages;
+    private final Set<DayOfWeek> lectureDays;
+
+    // AND FROZEN COPIES OF THE SCHEDULE STUFF
+    private final FrozenItems<ScheduleItem> scheduleItems;
+    private final FrozenItems<Lecture> lectures;
+    private final FrozenItems<Assignment> assignments;
+
+    private CourseSnapshot(Course course, FrozenItems<ScheduleItem> initScheduleItems,
+            FrozenItems<Lecture> initLectures, FrozenItems<Assignment> initAssignments) {
+        subject = course.subject;
+        number = course.number;
+        title = course.title;
+        semester = course.semester;
+        year = course.year;
+        instructorName = course.instructor.getName();
+        instructorHomepageURL = course.instructor.getHomepageURL();
+        startingMonday = course.startingMonday;
+        endingFriday = course.endingFriday;
+        pages = Collections.unmodifiableSet(EnumSet.copyOf(course.pages));
+        lectureDays = Collections.unmodifiableSet(EnumSet.copyOf(course.lectureDays));
+        scheduleItems = initScheduleItems;
+        lectures = initLectures;
+        assignments = initAssignments;
+    }
+
+    /**
+     * Takes a snapshot of the course, reusing whatever it can from the
+     * previous one. Note that this must be called on the thread that edits
+     * the course.
+     *
+     * @param course The course to take a snapshot of.
+     * @param previous The last snapshot taken of the same course, or null if
+     * there isn't one.
+     *
+     * @return The new snapshot, which will be previous itself if nothing about
+     * the course has changed.
+     */
+    static CourseSnapshot capture(Course course, CourseSnapshot previous) {
+        FrozenItems<ScheduleItem> scheduleItems = FrozenItems.freeze(course.scheduleItems,
+                previous == null ? null : previous.scheduleItems,
+                si -> si.modCount, ScheduleItem::new);
+        FrozenItems<Lecture> lectures = FrozenItems.freeze(course.lectures,
+                previous == null ? null : previous.lectures,
+                l -> l.modCount, Lecture::new);
+        FrozenItems<Assignment> assignments = FrozenItems.freeze(course.assignments,
+                previous == null ? null : previous.assignments,
+                a -> a.modCount, Assignment::new);
+        CourseSnapshot snapshot = new CourseSnapshot(course, scheduleItems, lectures, assignments);
+        if (previous != null && snapshot.sameAs(previous)) {
+            return previous;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Builds a new course with the data in this snapshot. The course shares
+     * nothing with the one the snapshot was taken of, or with any other course
+     * built from this snapshot, so it may be freely used, and even changed, by
+     * whichever thread calls this.
+     *
+     * @return A new course matching this snapshot.
+     */
+    public Course toCourse() {
+        Course course = new Course(new Instructor(instructorName, instructorHomepageURL));
+        course.subject = subject;
+        course.number = number;
+        course.title = title;
+        course.semester = semester;
+        course.year = year;
+        course.startingMonday = startingMonday;
+        course.endingFriday = endingFriday;
+        course.pages.addAll(pages);
+        course.lectureDays.addAll(lectureDays);
+
+        // THE FROZEN COPIES ARE SHARED, SO THE COURSE GETS ITS OWN COPIES OF THEM
+        course.scheduleItems.setAll(scheduleItems.copy(ScheduleItem::new));
+        course.lectures.setAll(lectures.copy(Lecture::new));
+        course.assignments.setAll(assignments.copy(Assignment::new));
+        return course;
+    }
+
+    /**
+     * Puts the course this snapshot was taken of back the way it was when it
+     * was taken. Items that have since been removed are put back, and items
+     * that have been changed are given their old data, so the same item
+     * objects stay in the course and the UI showing them simply updates. Note
+     * that this must be called on the thread that edits the course.
+     *
+     * @param course The course this snapshot was taken of.
+     */
+    void restoreTo(Course course) {
+        course.subject = subject;
+        course.number = number;
+        course.title = title;
+        course.semester = semester;
+        course.year = year;
+        course.instructor.setName(instructorName);
+        course.instructor.setHomepageURL(instructorHomepageURL);
+        course.startingMonday = startingMonday;
+        course.endingFriday = endingFriday;
+        course.pages.clear();
+        course.pages.addAll(pages);
+        course.lectureDays.clear();
+        course.lectureDays.addAll(lectureDays);
+        scheduleItems.restoreTo(course.scheduleItems, si -> si.modCount, ScheduleItem::restore);
+        lectures.restoreTo(course.lectures, l -> l.modCount, Lecture::restore);
+        assignments.restoreTo(course.assignments, a -> a.modCount, Assignment::restore);
+    }
+
+    // TESTS WHETHER THIS SNAPSHOT HOLDS EXACTLY THE SAME DATA AS other,
+    // WHICH IS ONLY EVER THE CASE IF IT WAS ABLE TO REUSE ALL OF other's ITEMS
+    private boolean sameAs(CourseSnapshot other) {
+        return scheduleItems == other.scheduleItems
+                && lectures == other.lectures
+                && assignments == other.assignments
+                && subject == other.subject
+                && number == other.number
+                && Objects.equals(title, other.title)
+                && semester == other.semester
+                && year == other.year
+                && Objects.equals(instructorName, other.instructorName)
+                && Objects.equals(instructorHomepageURL, other.instructorHomepageURL)
+                && Objects.equals(startingMonday, other.startingMonday)
+                && Objects.equals(endingFriday, other.endingFriday)
+                && pages.equals(other.pages)
+                && lectureDays.equals(other.lectureDays);
+    }
+
+    /**
+     * Frozen copies of the items in one of a course's lists, along with which
+     * live item, and which version of it, each copy was made from.
+     */
+    private static final class FrozenItems<T> {
+
+        // THE LIVE ITEMS, WHICH ARE ONLY EVER COMPARED, NEVER READ
+        final Object[] sources;
+
+        // THE modCount OF EACH LIVE ITEM WHEN IT WAS COPIED
+        final int[] modCounts;
+
+        // AND THE COPIES THEMSELVES, WHICH ARE NEVER CHANGED
+        final List<T> copies;
+
+        FrozenItems(Object[] initSources, int[] initModCounts, List<T> initCopies) {
+            sources = initSources;
+            modCounts = initModCounts;
+            copies = initCopies;
+        }
+
+        // COPIES THE ITEMS THAT HAVE CHANGED SINCE previous, RETURNING previous
+        // ITSELF IF THE LIST HOLDS THE SAME ITEMS AND NONE OF THEM HAVE CHANGED
+        static <T> FrozenItems<T> freeze(List<T> items, FrozenItems<T> previous,
+                ToIntFunction<T> modCountOf, UnaryOperator<T> copier) {
+            Object[] sources = items.toArray();
+            int[] modCounts = new int[sources.length];
+            Object[] copies = new Object[sources.length];
+            boolean unchanged = (previous != null) && (previous.sources.length == sources.length);
+            IdentityHashMap<Object, Integer> previousIndexes = null;
+            for (int i = 0; i < sources.length; i++) {
+                T item = items.get(i);
+                modCounts[i] = modCountOf.applyAsInt(item);
+
+                // ITEMS USUALLY STAY PUT, SO WE ONLY LOOK FOR ONE THAT
+                // HAS MOVED IF IT ISN'T WHERE IT USED TO BE
+                int previousIndex = -1;
+                if (previous != null) {
+                    if ((i < previous.sources.length) && (previous.sources[i] == item)) {
+                        previousIndex = i;
+                    } else {
+                        unchanged = false;
+                        if (previousIndexes == null) {
+                            previousIndexes = previous.indexes();
+                        }
+                        Integer index = previousIndexes.get(item);
+                        if (index != null) {
+                            previousIndex = index;
+                        }
+                    }
+                }
+                if ((previousIndex >= 0) && (previous.modCounts[previousIndex] == modCounts[i])) {
+                    copies[i] = previous.copies.get(previousIndex);
+                } else {
+                    unchanged = false;
+                    copies[i] = copier.apply(item);
+                }
+            }
+            if (unchanged) {
+                return previous;
+            }
+            return new FrozenItems(sources, modCounts,
+                    Collections.unmodifiableList(Arrays.asList(copies)));
+        }
+
+        // PUTS THE LIVE ITEMS BACK IN THE LIST AND GIVES ANY THAT HAVE
+        // CHANGED SINCE THEY WERE COPIED THEIR OLD DATA
+        void restoreTo(ObservableList<T> items, ToIntFunction<T> modCountOf, BiConsumer<T, T> restorer) {
+            for (int i = 0; i < sources.length; i++) {
+                T item = (T) sources[i];
+                if (modCountOf.applyAsInt(item) != modCounts[i]) {
+                    restorer.accept(item, copies.get(i));
+                }
+            }
+            if (!holdsSameItemsAs(items)) {
+                items.setAll((List<T>) Arrays.asList(sources));
+            }
+        }
+
+        // TESTS WHETHER items HOLDS EXACTLY THE LIVE ITEMS, IN THE SAME ORDER
+        boolean holdsSameItemsAs(List<T> items) {
+            if (items.size() != sources.length) {
+                return false;
+            }
+            for (int i = 0; i < sources.length; i++) {
+                if (items.get(i) != sources[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // MAPS EACH LIVE ITEM TO WHERE IT IS
+        IdentityHashMap<Object, Integer> indexes() {
+            IdentityHashMap<Object, Integer> indexes = new IdentityHashMap(sources.length);
+            for (int i = 0; i < sources.length; i++) {
+                indexes.put(sources[i], i);
+            }
+            return indexes;
+        }
+
+        // MAKES NEW COPIES OF THE FROZEN ONES
+        List<T> copy(UnaryOperator<T> copier) {
+            ArrayList<T> itemCopies = new ArrayList(copies.size());
+            for (T item : copies) {
+                itemCopies.add(copier.apply(item));
+            }
+            return itemCopies;
+        }
+    }
+}
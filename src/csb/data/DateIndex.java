@@ -0,0 +1,167 @@
+package csb.data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+/**
+ * This class keeps the items of an observable list organized by date so that
+ * looking up what happens on a given day, or between two days, doesn't require
+ * going through the whole list. It listens to the list, and each item in it
+ * tells the index when its date changes, so it is always up to date without
+ * ever being rebuilt. Any number of items may share a date.
+ *
+ * Note that items on the same date are kept in the order they were added to
+ * the index, which for a freshly built list is the order of the list.
+ *
+ * @param <T> The type of the items being indexed.
+ */
+public class DateIndex<T> {
+
+    // THE ITEMS ON EACH DATE
+    private final TreeMap<LocalDate, List<T>> itemsByDate;
+
+    // THIS IS HOW WE GET THE DATE OF AN ITEM
+    private final Function<T, LocalDate> dateOf;
+
+    // AND THIS IS HOW WE TELL AN ITEM WHICH INDEX, IF ANY, IT IS IN
+    private final BiConsumer<T, DateIndex<T>> indexSetter;
+
+    /**
+     * This constructor indexes everything currently in the items list and
+     * then keeps up with any changes to it.
+     *
+     * @param items The list to index.
+     * @param initDateOf Provides the date of an item.
+     * @param initIndexSetter Tells an item which index it is in, or null when
+     * it's removed, such that it can call dateChanged when its date changes.
+     */
+    public DateIndex(ObservableList<T> items, Function<T, LocalDate> initDateOf,
+            BiConsumer<T, DateIndex<T>> initIndexSetter) {
+        itemsByDate = new TreeMap();
+        dateOf = initDateOf;
+        indexSetter = initIndexSetter;
+        for (T item : items) {
+            itemAdded(item);
+        }
+        items.addListener((ListChangeListener.Change<? extends T> change) -> {
+            while (change.next()) {
+                // NOTE THAT PERMUTATIONS DON'T CHANGE ANY DATES
+                for (T removed : change.getRemoved()) {
+                    itemRemoved(removed);
+                }
+                for (T added : change.getAddedSubList()) {
+                    itemAdded(added);
+                }
+            }
+        });
+    }
+
+    /**
+     * Accessor method for all the items on a single date.
+     *
+     * @param date The date to look up.
+     *
+     * @return The items on that date, which will be empty if there are none.
+     */
+    public List<T> getItemsOn(LocalDate date) {
+        List<T> items = itemsByDate.get(date);
+        if (items == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(new ArrayList(items));
+    }
+
+    /**
+     * Accessor method for all the items between two dates, including those on
+     * both of them, in order of date.
+     *
+     * @param firstDate The earliest date to include.
+     * @param lastDate The latest date to include.
+     *
+     * @return The items between the two dates.
+     */
+    public List<T> getItemsBetween(LocalDate firstDate, LocalDate lastDate) {
+        ArrayList<T> items = new ArrayList();
+        if (!firstDate.isAfter(lastDate)) {
+            for (List<T> dateItems : itemsByDate.subMap(firstDate, true, lastDate, true).values()) {
+                items.addAll(dateItems);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Accessor method for testing whether anything is on a date.
+     *
+     * @param date The date to test.
+     *
+     * @return true if at least one item is on that date, false otherwise.
+     */
+    public boolean hasItemsOn(LocalDate date) {
+        return itemsByDate.containsKey(date);
+    }
+
+    /**
+     * Provides a read-only view of the whole index, with the dates in order.
+     *
+     * @return Every date that has items, mapped to those items.
+     */
+    public Map<LocalDate, List<T>> getItemsByDate() {
+        return Collections.unmodifiableMap(itemsByDate);
+    }
+
+    /**
+     * Called by an item in this index when its date has changed, moving it to
+     * its new date.
+     *
+     * @param item The item whose date changed.
+     * @param oldDate The date the item used to have.
+     */
+    public void dateChanged(T item, LocalDate oldDate) {
+        remove(oldDate, item);
+        put(dateOf.apply(item), item);
+    }
+
+    private void itemAdded(T item) {
+        put(dateOf.apply(item), item);
+        indexSetter.accept(item, this);
+    }
+
+    private void itemRemoved(T item) {
+        indexSetter.accept(item, null);
+        remove(dateOf.apply(item), item);
+    }
+
+    private void put(LocalDate date, T item) {
+        if (date != null) {
+            itemsByDate.computeIfAbsent(date, d -> new ArrayList(1)).add(item);
+        }
+    }
+
+    private void remove(LocalDate date, T item) {
+        if (date == null) {
+            return;
+        }
+        List<T> items = itemsByDate.get(date);
+        if (items != null) {
+            // WE'RE LOOKING FOR THIS VERY ITEM, NOT ONE THAT'S EQUAL TO IT
+            for (int i = 0; i < items.size(); i++) {
+                if (items.get(i) == item) {
+                    items.remove(i);
+                    break;
+                }
+            }
+            if (items.isEmpty()) {
+                itemsByDate.remove(date);
+            }
+        }
+    }
+}
@@ -5,29 +5,46 @@
  */
 package csb.data;
 
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.time.LocalDate;
 import javafx.beans.property.IntegerProperty;
-import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleIntegerProperty;
-import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 
 /**
- *
+ * A lecture's data is kept in plain fields, the properties the UI binds to
+ * are only made the first time they are asked for, after which they hold the
+ * values and keep the fields in sync. That way loading and exporting courses
+ * never pays for them.
+ * 
  * @author McKillaGorilla
  */
 public class Lecture {
-    final StringProperty topic;
-    final IntegerProperty sessions;
+    String topic;
+    int sessions;
+    StringProperty topicProperty;
+    IntegerProperty sessionsProperty;
+    
+    // THIS GOES UP WITH EVERY CHANGE
+    int modCount;
+    
     public static final String DEFAULT_TOPIC = "<ENTER TOPIC>";
     public static final int DEFAULT_SESSIONS = 1;    
     
     public Lecture() {
-        topic = new SimpleStringProperty(DEFAULT_TOPIC);
-        sessions = new SimpleIntegerProperty(DEFAULT_SESSIONS);
+        topic = DEFAULT_TOPIC;
+        sessions = DEFAULT_SESSIONS;
+    }
+    
+    // MAKES A COPY OF THE LECTURE'S DATA THAT ISN'T IN ANY COURSE
+    Lecture(Lecture lecture) {
+        topic = lecture.topic;
+        sessions = lecture.sessions;
+    }
+    
+    // GIVES THIS LECTURE THE DATA OF ANOTHER ONE
+    void restore(Lecture lecture) {
+        setTopic(lecture.topic);
+        setSessions(lecture.sessions);
     }
     
     public void reset() {
@@ -36,26 +53,54 @@ public class Lecture {
     }
     
     public String getTopic() {
-        return topic.get();
+        return topic;
     }
     
     public void setTopic(String initTopic) {
-        topic.set(initTopic);
+        if (topicProperty != null) {
+            topicProperty.set(initTopic);
+        } else {
+            topic = initTopic;
+            modCount++;
+        }
     }
     
     public StringProperty topicProperty() {
-        return topic;
+        if (topicProperty == null) {
+            topicProperty = new SimpleStringProperty(this, "topic", topic) {
+                @Override
+                protected void invalidated() {
+                    topic = get();
+                    modCount++;
+                }
+            };
+        }
+        return topicProperty;
     }
     
     public int getSessions() {
-        return sessions.get();
+        return sessions;
     }
     
     public void setSessions(int initSessions) {
-        sessions.set(initSessions);
+        if (sessionsProperty != null) {
+            sessionsProperty.set(initSessions);
+        } else {
+            sessions = initSessions;
+            modCount++;
+        }
     }
     
     public IntegerProperty sessionsProperty() {
-        return sessions;
+        if (sessionsProperty == null) {
+            sessionsProperty = new SimpleIntegerProperty(this, "sessions", sessions) {
+                @Override
+                protected void invalidated() {
+                    sessions = get();
+                    modCount++;
+                }
+            };
+        }
+        return sessionsProperty;
     }
 }
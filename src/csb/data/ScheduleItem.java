@@ -7,20 +7,47 @@ import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 
 /**
- *
+ * A schedule item's data is kept in plain fields, with its date stored as a
+ * day number, and the properties the UI binds to are only made the first time
+ * they are asked for.
+ * 
  * @author McKillaGorilla
  */
 public class ScheduleItem implements Comparable {
-    final StringProperty description;
-    final ObjectProperty<LocalDate> date;
-    final StringProperty link;
+    String description;
+    int date;
+    String link;
+    StringProperty descriptionProperty;
+    ObjectProperty<LocalDate> dateProperty;
+    StringProperty linkProperty;
+    
+    // THIS GOES UP WITH EVERY CHANGE
+    int modCount;
+    
+    // THE DATE INDEX OF THE COURSE THIS ITEM IS IN, IF ANY
+    DateIndex<ScheduleItem> dateIndex;
+    
     public static final String DEFAULT_DESCRIPTION = "<ENTER DESCRIPTION>";
     public static final String DEFAULT_URL = "http://www.google.com";    
     
     public ScheduleItem() {
-        description = new SimpleStringProperty(DEFAULT_DESCRIPTION);
-        date = new SimpleObjectProperty(LocalDate.now());
-        link = new SimpleStringProperty(DEFAULT_URL);
+        description = DEFAULT_DESCRIPTION;
+        date = Assignment.toDay(LocalDate.now());
+        link = DEFAULT_URL;
+    }
+    
+    // MAKES A COPY OF THE ITEM'S DATA THAT ISN'T IN ANY COURSE
+    ScheduleItem(ScheduleItem item) {
+        description = item.description;
+        date = item.date;
+        link = item.link;
+    }
+    
+    // GIVES THIS ITEM THE DATA OF ANOTHER ONE
+    void restore(ScheduleItem item) {
+        setDescription(item.description);
+        setDate(item.getDate());
+        setLink(item.link);
     }
     
     public void reset() {
@@ -30,39 +57,79 @@ public class ScheduleItem implements Comparable {
     }
     
     public String getDescription() {
-        return description.get();
+        return description;
     }
     
     public void setDescription(String initDescription) {
-        description.set(initDescription);
+        if (descriptionProperty != null) {
+            descriptionProperty.set(initDescription);
+        } else {
+            description = initDescription;
+            modCount++;
+        }
     }
     
     public StringProperty descriptionProperty() {
-        return description;
+        if (descriptionProperty == null) {
+            descriptionProperty = new SimpleStringProperty(this, "description", description) {
+                @Override
+                protected void invalidated() {
+                    description = get();
+                    modCount++;
+                }
+            };
+        }
+        return descriptionProperty;
     }
     
     public LocalDate getDate() {
-        return (LocalDate)date.get();
+        return Assignment.toDate(date);
     }
     
     public void setDate(LocalDate initDate) {
-        date.set(initDate);
+        if (dateProperty != null) {
+            dateProperty.set(initDate);
+        } else {
+            updateDate(initDate);
+        }
     }
     
     public ObjectProperty<LocalDate> dateProperty() {
-        return date;
+        if (dateProperty == null) {
+            dateProperty = new SimpleObjectProperty<LocalDate>(this, "date", getDate()) {
+                @Override
+                protected void invalidated() {
+                    updateDate(get());
+                }
+            };
+        }
+        return dateProperty;
     }
    
     public String getLink() {
-        return link.get();
+        return link;
     }
     
     public void setLink(String initLink) {
-        link.set(initLink);
+        if (linkProperty != null) {
+            linkProperty.set(initLink);
+        } else {
+            link = initLink;
+            modCount++;
+        }
     }
     
     public StringProperty linkProperty() {
-        return link;
+        if (linkProperty == null) {
+            linkProperty = new SimpleStringProperty(this, "link", link) {
+                @Override
+                protected void invalidated() {
+                    link = get();
+                    modCount++;
+                }
+            };
+        }
+        return linkProperty;
     }    
     
     @Override
@@ -70,4 +137,14 @@ public class ScheduleItem implements Comparable {
         ScheduleItem otherItem = (ScheduleItem)obj;
         return getDate().compareTo(otherItem.getDate());
     }
+    
+    // CHANGES THE DATE, LETTING THE DATE INDEX KNOW
+    private void updateDate(LocalDate newDate) {
+        LocalDate oldDate = getDate();
+        date = Assignment.toDay(newDate);
+        modCount++;
+        if (dateIndex != null) {
+            dateIndex.dateChanged(this, oldDate);
+        }
+    }
 }
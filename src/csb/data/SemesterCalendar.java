@@ -0,0 +1,293 @@
+package csb.data;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A SemesterCalendar lays a course out as it will actually happen, one week at
+ * a time from the starting Monday to the ending Friday. Each weekday knows its
+ * holidays, which lecture, if any, is given on it and which assignments are due
+ * on it, so whatever shows the schedule, like the schedule page, only has to
+ * draw it.
+ *
+ * Lectures are given in order on the course's lecture days, each one taking up
+ * as many of those days as it has sessions. Days with a schedule item on them
+ * are holidays, on which no lecture is given and the schedule simply picks up
+ * again on the next lecture day.
+ *
+ * A calendar is built in a single pass over the semester and, once built, never
+ * changes, so it may be freely shared by any number of threads. Note that it
+ * won't change when the course it was built from does either, a new one has to
+ * be built for that.
+ */
+public final class SemesterCalendar {
+
+    // THE DAYS OF THE WEEK THAT GO IN A CALENDAR WEEK
+    public static final int DAYS_PER_WEEK = 5;
+
+    // WE LIST THE ASSIGNMENTS DUE ON A DAY BY NAME
+    private static final Comparator<AssignmentDue> ASSIGNMENT_ORDER
+            = Comparator.comparing(AssignmentDue::getName, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    // ALL THE WEEKS OF THE SEMESTER, IN ORDER
+    private final List<Week> weeks;
+
+    private SemesterCalendar(List<Week> initWeeks) {
+        weeks = Collections.unmodifiableList(initWeeks);
+    }
+
+    /**
+     * Builds the calendar for a course.
+     *
+     * @param course The course to lay out. Note that this must not be changed
+     * while the calendar is being built.
+     *
+     * @return The calendar, which will have no weeks if the course doesn't have
+     * both a starting Monday and an ending Friday.
+     */
+    public static SemesterCalendar build(Course course) {
+        ArrayList<Week> weeks = new ArrayList();
+        LocalDate startingMonday = course.getStartingMonday();
+        LocalDate endingFriday = course.getEndingFriday();
+        if ((startingMonday == null) || (endingFriday == null)) {
+            return new SemesterCalendar(weeks);
+        }
+        Set<DayOfWeek> lectureDays = course.getLectureDays();
+        List<Lecture> lectures = course.getLectures();
+
+        // WHICH LECTURE WE'RE ON, HOW MANY OF ITS SESSIONS ARE LEFT, AND
+        // HOW MANY LECTURE SESSIONS HAVE BEEN GIVEN SO FAR
+        int lectureIndex = 0;
+        int sessionsLeft = lectures.isEmpty() ? 0 : lectures.get(0).getSessions();
+        int sessionsGiven = 0;
+
+        LocalDate monday = startingMonday;
+        while (!monday.isAfter(endingFriday)) {
+            ArrayList<Day> days = new ArrayList(DAYS_PER_WEEK);
+            for (int i = 0; i < DAYS_PER_WEEK; i++) {
+                LocalDate date = monday.plusDays(i);
+
+                // ANY SCHEDULE ITEM MAKES IT A HOLIDAY
+                ArrayList<Holiday> holidays = new ArrayList();
+                for (ScheduleItem scheduleItem : course.getScheduleItemsOn(date)) {
+                    holidays.add(new Holiday(scheduleItem.getDescription(), scheduleItem.getLink()));
+                }
+
+                // ON OTHER DAYS THE NEXT LECTURE SESSION MAY BE GIVEN
+                LectureSession lecture = null;
+                if (holidays.isEmpty() && (lectureIndex < lectures.size())) {
+                    // MOVE ON TO THE NEXT LECTURE ONCE ALL OF THIS ONE'S SESSIONS ARE DONE
+                    if (sessionsLeft == 0) {
+                        lectureIndex++;
+                        if (lectureIndex < lectures.size()) {
+                            sessionsLeft = lectures.get(lectureIndex).getSessions();
+                        }
+                    }
+                    if (lectureDays.contains(date.getDayOfWeek()) && (sessionsLeft > 0)) {
+                        Lecture currentLecture = lectures.get(lectureIndex);
+                        sessionsGiven++;
+                        lecture = new LectureSession(sessionsGiven, currentLecture.getTopic(),
+                                currentLecture.getSessions() - sessionsLeft + 1);
+                        sessionsLeft--;
+                    }
+                }
+
+                // AND ANY NUMBER OF ASSIGNMENTS MAY BE DUE
+                ArrayList<AssignmentDue> assignmentsDue = new ArrayList();
+                for (Assignment assignment : course.getAssignmentsOn(date)) {
+                    assignmentsDue.add(new AssignmentDue(assignment.getName(), assignment.getTopics()));
+                }
+                assignmentsDue.sort(ASSIGNMENT_ORDER);
+
+                days.add(new Day(date, holidays, lecture, assignmentsDue));
+            }
+            weeks.add(new Week(days));
+
+            // THE WEEKEND IS SKIPPED
+            monday = monday.plusWeeks(1);
+        }
+        return new SemesterCalendar(weeks);
+    }
+
+    /**
+     * Accessor method for the weeks of the semester.
+     *
+     * @return Every week from the starting Monday to the ending Friday, in
+     * order.
+     */
+    public List<Week> getWeeks() {
+        return weeks;
+    }
+
+    /**
+     * Accessor method for the total number of lecture sessions in the
+     * semester, which may be fewer than the course's lectures call for if
+     * the semester runs out of lecture days.
+     *
+     * @return The number of days on which a lecture is given.
+     */
+    public int getLectureSessionCount() {
+        int count = 0;
+        for (Week week : weeks) {
+            for (Day day : week.getDays()) {
+                if (day.getLecture() != null) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * One Monday to Friday week of the semester.
+     */
+    public static final class Week {
+
+        private final List<Day> days;
+
+        Week(List<Day> initDays) {
+            days = Collections.unmodifiableList(initDays);
+        }
+
+        public LocalDate getMonday() {
+            return days.get(0).getDate();
+        }
+
+        public List<Day> getDays() {
+            return days;
+        }
+    }
+
+    /**
+     * One weekday of the semester and everything that happens on it.
+     */
+    public static final class Day {
+
+        private final LocalDate date;
+        private final List<Holiday> holidays;
+        private final LectureSession lecture;
+        private final List<AssignmentDue> assignmentsDue;
+
+        Day(LocalDate initDate, List<Holiday> initHolidays, LectureSession initLecture,
+                List<AssignmentDue> initAssignmentsDue) {
+            date = initDate;
+            holidays = Collections.unmodifiableList(initHolidays);
+            lecture = initLecture;
+            assignmentsDue = Collections.unmodifiableList(initAssignmentsDue);
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public boolean isHoliday() {
+            return !holidays.isEmpty();
+        }
+
+        public List<Holiday> getHolidays() {
+            return holidays;
+        }
+
+        /**
+         * Accessor method for the lecture given on this day.
+         *
+         * @return The lecture session, or null if there isn't one.
+         */
+        public LectureSession getLecture() {
+            return lecture;
+        }
+
+        public List<AssignmentDue> getAssignmentsDue() {
+            return assignmentsDue;
+        }
+    }
+
+    /**
+     * A schedule item marking a day without class.
+     */
+    public static final class Holiday {
+
+        private final String description;
+        private final String link;
+
+        Holiday(String initDescription, String initLink) {
+            description = initDescription;
+            link = initLink;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public String getLink() {
+            return link;
+        }
+    }
+
+    /**
+     * One session of a lecture.
+     */
+    public static final class LectureSession {
+
+        private final int number;
+        private final String topic;
+        private final int session;
+
+        LectureSession(int initNumber, String initTopic, int initSession) {
+            number = initNumber;
+            topic = initTopic;
+            session = initSession;
+        }
+
+        /**
+         * Accessor method for where this session falls in the semester.
+         *
+         * @return 1 for the first lecture session of the semester, 2 for the
+         * second, and so on.
+         */
+        public int getNumber() {
+            return number;
+        }
+
+        public String getTopic() {
+            return topic;
+        }
+
+        /**
+         * Accessor method for which of its lecture's sessions this is.
+         *
+         * @return 1 for the first session of the lecture, 2 for the second,
+         * and so on.
+         */
+        public int getSession() {
+            return session;
+        }
+    }
+
+    /**
+     * An assignment that's due on a day.
+     */
+    public static final class AssignmentDue {
+
+        private final String name;
+        private final String topics;
+
+        AssignmentDue(String initName, String initTopics) {
+            name = initName;
+            topics = initTopics;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getTopics() {
+            return topics;
+        }
+    }
+}
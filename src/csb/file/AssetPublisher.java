@@ -0,0 +1,330 @@
+package csb.file;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * This class publishes the files a course site needs besides its pages, like
+ * its style sheets and images, from the base site to a course's site directory.
+ * Every time a site is published each of these assets is compared, by a hash
+ * of its contents, to what was published there last time, which is recorded in
+ * a small manifest in the site directory, so changes to the base site always
+ * make it to every course, but unchanged assets are left alone.
+ *
+ * How an asset is published is up to its Strategy. Copies keep every site
+ * completely independent, while links let hundreds of sites share a single copy
+ * of each asset. Where a link can't be made, like on a file system that doesn't
+ * support them, the asset is copied instead.
+ *
+ * Note that published assets are only ever replaced, never written to, so
+ * nothing done to a site can change the base site through a link.
+ */
+public class AssetPublisher {
+
+    /**
+     * The ways an asset can be published.
+     */
+    public enum Strategy {
+        // COPY THE ASSET, A CHANNEL TRANSFER AT A TIME
+        COPY,
+        // HARD LINK TO THE BASE SITE'S FILE
+        HARD_LINK,
+        // SYMBOLICALLY LINK TO THE BASE SITE'S FILE
+        SYMBOLIC_LINK,
+        // KEEP ONE COPY OF EACH DISTINCT ASSET, NAMED BY ITS HASH, IN A
+        // SHARED DIRECTORY, AND SYMBOLICALLY LINK TO THAT
+        SHARED
+    }
+
+    // THIS IS THE FILE IN THE SITE DIRECTORY WHERE WE RECORD WHAT WE PUBLISHED
+    public static final String MANIFEST_FILE_NAME = ".asset_manifest";
+
+    // WE'LL USE THIS TO HASH THE CONTENTS OF THE ASSETS
+    public static final String HASH_ALGORITHM = "SHA-1";
+
+    // NEW FILES ARE PUT TOGETHER UNDER A TEMPORARY NAME AND THEN MOVED INTO PLACE
+    public static final String TEMP_FILE_PREFIX = ".";
+    public static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    // WE WRITE EACH MANIFEST ENTRY AS THE STRATEGY AND THE HASH
+    private static final String ENTRY_SEPARATOR = ":";
+
+    // THE BASE SITE AND ITS DIRECTORIES OF ASSETS
+    private final File baseDir;
+    private final String[] assetDirs;
+
+    // WHERE SHARED ASSETS ARE KEPT
+    private final File sharedDir;
+
+    // HOW WE'RE PUBLISHING ASSETS
+    private volatile Strategy strategy;
+
+    // THE HASHES OF THE BASE SITE'S ASSETS, SO THEY'RE ONLY READ WHEN THEY CHANGE
+    private final HashMap<File, AssetHash> assetHashes;
+
+    /**
+     * This constructor sets up a publisher that copies assets.
+     *
+     * @param initBaseDir Directory that contains the base site files.
+     * @param initSharedDir Directory where shared assets are to be kept.
+     * @param initAssetDirs The directories of the base site, and so also of
+     * each course site, that have assets in them.
+     */
+    public AssetPublisher(String initBaseDir, String initSharedDir, String... initAssetDirs) {
+        baseDir = new File(initBaseDir);
+        sharedDir = new File(initSharedDir);
+        assetDirs = initAssetDirs.clone();
+        strategy = Strategy.COPY;
+        assetHashes = new HashMap();
+    }
+
+    /**
+     * Mutator method for how assets are published. Note that changing this
+     * means every asset will be published again the next time each site is.
+     *
+     * @param initStrategy The strategy to publish assets with from now on.
+     */
+    public void setStrategy(Strategy initStrategy) {
+        strategy = initStrategy;
+    }
+
+    /**
+     * Accessor method for how assets are published.
+     *
+     * @return The strategy assets are published with.
+     */
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Brings the assets of a site up to date with the base site, publishing
+     * the ones that have changed or gone missing since they were last
+     * published and removing the ones that are no longer in the base site.
+     *
+     * @param siteDir The site directory, which must already exist.
+     *
+     * @return The number of assets that were published.
+     *
+     * @throws IOException Thrown when an asset cannot be published.
+     */
+    public int publish(String siteDir) throws IOException {
+        Path sitePath = new File(siteDir).toPath();
+        File manifestFile = new File(siteDir, MANIFEST_FILE_NAME);
+        Properties lastPublished = loadManifest(manifestFile);
+        Properties published = new Properties();
+        Strategy publishStrategy = strategy;
+        int publishedCount = 0;
+        for (String assetDir : assetDirs) {
+            File[] assets = new File(baseDir, assetDir).listFiles(File::isFile);
+            if (assets == null) {
+                continue;
+            }
+            Path targetDir = sitePath.resolve(assetDir);
+            Files.createDirectories(targetDir);
+            for (File asset : assets) {
+                String key = assetDir + "/" + asset.getName();
+                String hash = getHash(asset);
+                String entry = publishStrategy + ENTRY_SEPARATOR + hash;
+                Path target = targetDir.resolve(asset.getName());
+
+                // NOTE THAT A BROKEN LINK DOESN'T EXIST EITHER
+                if (!entry.equals(lastPublished.getProperty(key)) || !Files.exists(target)) {
+                    publishAsset(asset.toPath(), hash, target, publishStrategy);
+                    publishedCount++;
+                }
+                published.setProperty(key, entry);
+            }
+        }
+
+        // ANYTHING WE PUBLISHED BEFORE THAT'S NOT IN THE BASE SITE ANYMORE GOES
+        for (String key : lastPublished.stringPropertyNames()) {
+            Path stale = sitePath.resolve(key).normalize();
+            if (!published.containsKey(key) && stale.startsWith(sitePath.normalize())) {
+                Files.deleteIfExists(stale);
+            }
+        }
+
+        // AND REMEMBER WHAT WE PUBLISHED FOR NEXT TIME
+        if (!published.equals(lastPublished)) {
+            AtomicFileWriter.write(manifestFile.toPath(), (OutputStream os) -> published.store(os, null));
+        }
+        return publishedCount;
+    }
+
+    // BELOW ARE ALL THE PRIVATE HELPER METHODS
+
+    // PUTS AN ASSET IN PLACE USING THE STRATEGY, FALLING BACK TO A COPY
+    private void publishAsset(Path asset, String hash, Path target, Strategy publishStrategy)
+            throws IOException {
+        Path source = asset;
+        if (publishStrategy == Strategy.SHARED) {
+            source = getSharedAsset(asset, hash);
+        }
+        boolean linked = false;
+        if (publishStrategy == Strategy.HARD_LINK) {
+            linked = replace(target, temp -> Files.createLink(temp, asset));
+        } else if ((publishStrategy == Strategy.SYMBOLIC_LINK) || (publishStrategy == Strategy.SHARED)) {
+            // RELATIVE LINKS KEEP WORKING IF ALL THE SITES ARE MOVED TOGETHER
+            Path linkTarget = target.toAbsolutePath().getParent().normalize()
+                    .relativize(source.toAbsolutePath().normalize());
+            linked = replace(target, temp -> Files.createSymbolicLink(temp, linkTarget));
+        }
+        if (!linked) {
+            Path copySource = source;
+            if (!replace(target, temp -> copy(copySource, temp))) {
+                throw new IOException("Could not publish " + asset + " to " + target);
+            }
+        }
+    }
+
+    // GETS THE SHARED COPY OF AN ASSET, MAKING IT IF THIS IS THE FIRST TIME
+    // IT'S BEEN PUBLISHED. NOTE THAT SINCE IT'S NAMED BY ITS CONTENTS, A
+    // SHARED ASSET NEVER CHANGES ONCE IT'S THERE
+    private Path getSharedAsset(Path asset, String hash) throws IOException {
+        String name = asset.getFileName().toString();
+        int extensionStart = name.lastIndexOf('.');
+        String extension = (extensionStart < 0) ? "" : name.substring(extensionStart);
+        Path sharedAsset = sharedDir.toPath().resolve(hash + extension);
+        if (!Files.exists(sharedAsset)) {
+            Files.createDirectories(sharedDir.toPath());
+            if (!replace(sharedAsset, temp -> copy(asset, temp))) {
+                throw new IOException("Could not share " + asset);
+            }
+        }
+        return sharedAsset;
+    }
+
+    /**
+     * Makes a new file or link.
+     */
+    private interface PathMaker {
+
+        public void make(Path path) throws IOException;
+    }
+
+    // MAKES A NEW FILE OR LINK UNDER A TEMPORARY NAME AND THEN MOVES IT OVER
+    // target IN ONE STEP, RETURNING FALSE IF IT COULDN'T BE MADE
+    private static boolean replace(Path target, PathMaker maker) throws IOException {
+        Path temp = target.resolveSibling(TEMP_FILE_PREFIX + target.getFileName() + "."
+                + UUID.randomUUID() + TEMP_FILE_SUFFIX);
+        boolean moved = false;
+        try {
+            try {
+                maker.make(temp);
+            } catch (IOException | UnsupportedOperationException e) {
+                return false;
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException amnse) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            moved = true;
+            return true;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    // COPIES A FILE, LETTING THE OPERATING SYSTEM MOVE THE BYTES
+    private static void copy(Path source, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                long transferred = in.transferTo(position, size - position, out);
+                if (transferred <= 0) {
+                    // THE FILE GOT SHORTER WHILE WE WERE COPYING IT
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    // GETS THE HASH OF AN ASSET OF THE BASE SITE, ONLY READING IT IF IT HAS
+    // CHANGED SINCE WE LAST DID
+    private String getHash(File asset) throws IOException {
+        long lastModified = asset.lastModified();
+        long length = asset.length();
+        synchronized (assetHashes) {
+            AssetHash known = assetHashes.get(asset);
+            if ((known != null) && (known.lastModified == lastModified) && (known.length == length)) {
+                return known.hash;
+            }
+        }
+        String hash = hash(asset);
+        synchronized (assetHashes) {
+            assetHashes.put(asset, new AssetHash(lastModified, length, hash));
+        }
+        return hash;
+    }
+
+    private static String hash(File asset) throws IOException {
+        try (FileChannel in = FileChannel.open(asset.toPath(), StandardOpenOption.READ)) {
+            MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            while (in.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IOException(nsae.getMessage());
+        }
+    }
+
+    private static Properties loadManifest(File manifestFile) {
+        Properties manifest = new Properties();
+        if (manifestFile.exists()) {
+            try (InputStream is = new FileInputStream(manifestFile)) {
+                manifest.load(is);
+            } catch (IOException ioe) {
+                // A DAMAGED MANIFEST JUST MEANS WE PUBLISH EVERYTHING AGAIN
+                manifest.clear();
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * The hash of an asset along with what we need to know to tell whether
+     * the asset has changed since it was hashed.
+     */
+    private static class AssetHash {
+
+        final long lastModified;
+        final long length;
+        final String hash;
+
+        AssetHash(long initLastModified, long initLength, String initHash) {
+            lastModified = initLastModified;
+            length = initLength;
+            hash = initHash;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package csb.file;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * This class writes files such that a crash part way through writing never
+ * damages what was there before. New contents are first written to a temporary
+ * file in the same directory, which is forced to disk and then moved over the
+ * original in a single atomic step. Readers will therefore only ever see the
+ * old file or the complete new one.
+ */
+public class AtomicFileWriter {
+
+    // TEMPORARY FILES ARE NAMED AFTER THE FILE THEY WILL REPLACE
+    public static final String TEMP_FILE_PREFIX = ".";
+    public static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    /**
+     * Something that knows how to write the contents of a file.
+     */
+    public interface FileContents {
+
+        /**
+         * Writes the contents of the file to the provided stream. Note that
+         * closing the stream is allowed but not required.
+         *
+         * @param os The stream to write the contents to.
+         *
+         * @throws IOException Thrown when the contents cannot be written.
+         */
+        public void writeTo(OutputStream os) throws IOException;
+    }
+
+    // THIS CLASS ONLY HAS STATIC METHODS
+    private AtomicFileWriter() {
+    }
+
+    /**
+     * Atomically replaces the contents of the file at targetPath with what
+     * contents writes. If anything goes wrong the original file is left as it
+     * was and the temporary file is removed.
+     *
+     * @param targetPath The file to write.
+     * @param contents Writes the new contents of the file.
+     *
+     * @throws IOException Thrown when the file cannot be written.
+     */
+    public static void write(Path targetPath, FileContents contents) throws IOException {
+        Path target = targetPath.toAbsolutePath();
+        Path dir = target.getParent();
+        Path temp = dir.resolve(TEMP_FILE_PREFIX + target.getFileName() + "."
+                + UUID.randomUUID() + TEMP_FILE_SUFFIX);
+        boolean moved = false;
+        try {
+            // WRITE EVERYTHING TO THE TEMPORARY FILE AND MAKE SURE IT'S ON THE DISK
+            try (FileChannel channel = FileChannel.open(temp,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                OutputStream os = new BufferedOutputStream(Channels.newOutputStream(channel));
+                contents.writeTo(new FilterOutputStream(os) {
+                    // WE STILL NEED THE CHANNEL AFTER THE CONTENTS ARE WRITTEN
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        out.write(b, off, len);
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        flush();
+                    }
+                });
+                os.flush();
+                channel.force(true);
+            }
+
+            // THEN SWAP IT IN FOR THE ORIGINAL
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException amnse) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            moved = true;
+
+            // AND MAKE SURE THE RENAME ITSELF IS ON THE DISK
+            forceDirectory(dir);
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    // NOT EVERY PLATFORM LETS US OPEN A DIRECTORY TO FORCE IT TO
+    // DISK, IN WHICH CASE THERE IS NOTHING MORE WE CAN DO
+    private static void forceDirectory(Path dir) {
+        try (FileChannel dirChannel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            dirChannel.force(true);
+        } catch (IOException ioe) {
+            // THE FILE ITSELF IS ALREADY SAFELY IN PLACE
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package csb.file;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * A CompiledTemplate is a base page that has already been written out, as far
+ * as it can be before a course's content is known. It's a list of chunks of
+ * encoded bytes with a slot between each pair of them, so a page is exported
+ * just by writing each chunk as it is and the content of each slot in between.
+ *
+ * How the serializer writes a slot's content depends on where in the page the
+ * slot is, so along with the chunks each slot keeps the little bit of the page
+ * that leads up to its content, which is its element's ancestors, its element,
+ * and whatever the template already has in that element. Writing that first
+ * puts the serializer in the same state it would be in when writing the whole
+ * page, and only what comes after it is kept, so a page comes out exactly the
+ * same as if the whole of it had been written. A template where that wouldn't
+ * be so, such as one with a slot inside another, can't be compiled.
+ *
+ * Compiled templates can be saved to a file and loaded again later, which
+ * doesn't require the template to be parsed at all. Note that a CompiledTemplate
+ * never changes once it's made, so it may be used to write any number of pages
+ * at the same time.
+ */
+public class CompiledTemplate {
+
+    // THE FILES WE SAVE TO START WITH THIS, FOLLOWED BY THE FORMAT VERSION
+    public static final String FILE_MAGIC = "CSB COMPILED TEMPLATE";
+    public static final int FILE_FORMAT_VERSION = 1;
+
+    // HOW THE SERIALIZER WRITES PAGES MAY CHANGE FROM ONE JAVA TO ANOTHER,
+    // SO A SAVED TEMPLATE IS ONLY USED BY THE JAVA THAT COMPILED IT
+    private static final String SERIALIZER_VERSION = System.getProperty("java.version");
+
+    // THE ENCODING OF ALL EXPORTED PAGES
+    public static final Charset PAGE_CHARSET = StandardCharsets.UTF_8;
+
+    // THE HASH OF THE TEMPLATE FILE THIS WAS COMPILED FROM
+    private final byte[] templateHash;
+
+    // THE CHUNKS, OF WHICH THERE IS ONE MORE THAN THERE ARE SLOTS
+    private final byte[][] chunks;
+
+    // THE SLOTS, IN THE ORDER THEY APPEAR IN THE PAGE
+    private final CompiledSlot[] slots;
+
+    private CompiledTemplate(byte[] initTemplateHash, byte[][] initChunks, CompiledSlot[] initSlots) {
+        templateHash = initTemplateHash;
+        chunks = initChunks;
+        slots = initSlots;
+    }
+
+    /**
+     * Compiles a template.
+     *
+     * @param template The split up template to compile.
+     * @param templateHash The hash of the template file it was split from.
+     *
+     * @return The compiled template, or null if this template can't be
+     * written in chunks and still come out the same.
+     *
+     * @throws SAXException Thrown when the template cannot be written.
+     * @throws TransformerConfigurationException Thrown when no serializer is
+     * available.
+     */
+    public static CompiledTemplate compile(SplitTemplate template, byte[] templateHash)
+            throws SAXException, TransformerConfigurationException {
+        List<SplitTemplate.Part> parts = template.getParts();
+        ArrayList<byte[]> chunks = new ArrayList();
+        ArrayList<CompiledSlot> slots = new ArrayList();
+
+        // WE'LL WRITE THE WHOLE PAGE, LEAVING THE SLOTS EMPTY, AND CUT IT UP
+        StringWriter out = new StringWriter();
+        TransformerHandler handler = XMLToolbox.newPageHandler(new StreamResult(out));
+        int chunkStart = 0;
+
+        // WHERE THE ELEMENTS WE'RE INSIDE OF START
+        ArrayList<Integer> openElements = new ArrayList();
+
+        handler.startDocument();
+        for (int i = 0; i < parts.size(); i++) {
+            SplitTemplate.Part part = parts.get(i);
+            if (part.type == SplitTemplate.SLOT) {
+                // THE SLOT'S CONTEXT IS ITS ELEMENT'S ANCESTORS...
+                ArrayList<SplitTemplate.Part> context = new ArrayList();
+                int elementStart = openElements.remove(openElements.size() - 1);
+                for (int ancestorStart : openElements) {
+                    context.add(parts.get(ancestorStart));
+                }
+
+                // ...AND EVERYTHING FROM THE START OF ITS ELEMENT UP TO IT
+                for (int j = elementStart; j < i; j++) {
+                    if (parts.get(j).type == SplitTemplate.SLOT) {
+                        return null;
+                    }
+                    context.add(parts.get(j));
+                }
+
+                // THE CHUNK ENDS HERE, AND THE NEXT ONE STARTS AFTER THE
+                // SLOT'S ELEMENT ENDS, WHICH IS THE NEXT PART
+                int contentStart = out.getBuffer().length();
+                chunks.add(encode(out.getBuffer().substring(chunkStart, contentStart)));
+                SplitTemplate.Part end = parts.get(++i);
+                end.writeTo(handler);
+                chunkStart = out.getBuffer().length();
+                CompiledSlot slot = new CompiledSlot(part.slot, context, end,
+                        encode(out.getBuffer().substring(contentStart, chunkStart)));
+
+                // MAKE SURE THE SLOT COMES OUT THE SAME ON ITS OWN AS IT DOES
+                // IN THE PAGE, OTHERWISE ITS CONTEXT ISN'T ENOUGH
+                if (!Arrays.equals(slot.render(slotContent -> {
+                }), slot.emptyContent)) {
+                    return null;
+                }
+                slots.add(slot);
+            } else {
+                if (part.type == SplitTemplate.START_ELEMENT) {
+                    openElements.add(i);
+                } else if (part.type == SplitTemplate.END_ELEMENT) {
+                    openElements.remove(openElements.size() - 1);
+                }
+                part.writeTo(handler);
+            }
+        }
+        handler.endDocument();
+        chunks.add(encode(out.getBuffer().substring(chunkStart)));
+        return new CompiledTemplate(templateHash.clone(),
+                chunks.toArray(new byte[chunks.size()][]),
+                slots.toArray(new CompiledSlot[slots.size()]));
+    }
+
+    /**
+     * Writes a page made from this template.
+     *
+     * @param content What to put in each slot, slots not in here get no
+     * content.
+     * @param out Where to write the page.
+     *
+     * @throws IOException Thrown when the page cannot be written to out.
+     * @throws SAXException Thrown when a slot's content cannot be written.
+     * @throws TransformerConfigurationException Thrown when no serializer is
+     * available.
+     */
+    public void write(Map<PageSlot, Consumer<PageContent>> content, OutputStream out)
+            throws IOException, SAXException, TransformerConfigurationException {
+        for (int i = 0; i < slots.length; i++) {
+            out.write(chunks[i]);
+            Consumer<PageContent> slotContent = content.get(slots[i].slot);
+            out.write((slotContent == null) ? slots[i].emptyContent : slots[i].render(slotContent));
+        }
+        out.write(chunks[slots.length]);
+    }
+
+    /**
+     * Loads a compiled template that was saved to a file, so long as it was
+     * compiled from the same template file.
+     *
+     * @param compiledFile The file to load.
+     * @param templateHash The hash of the template file as it is now.
+     *
+     * @return The compiled template, or null if there's no such file, or it
+     * was compiled from a different template file, or by a different Java, or
+     * it can't be read.
+     */
+    public static CompiledTemplate load(File compiledFile, byte[] templateHash) {
+        if (!compiledFile.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(compiledFile)))) {
+            if (!FILE_MAGIC.equals(in.readUTF())
+                    || (in.readInt() != FILE_FORMAT_VERSION)
+                    || !SERIALIZER_VERSION.equals(in.readUTF())
+                    || !Arrays.equals(templateHash, readBytes(in))) {
+                return null;
+            }
+            CompiledSlot[] slots = new CompiledSlot[in.readInt()];
+            for (int i = 0; i < slots.length; i++) {
+                PageSlot slot = PageSlot.valueOf(in.readUTF());
+                ArrayList<SplitTemplate.Part> context = new ArrayList();
+                int contextSize = in.readInt();
+                for (int j = 0; j < contextSize; j++) {
+                    context.add(readPart(in));
+                }
+                SplitTemplate.Part end = readPart(in);
+                slots[i] = new CompiledSlot(slot, context, end, readBytes(in));
+            }
+            byte[][] chunks = new byte[slots.length + 1][];
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = readBytes(in);
+            }
+            return new CompiledTemplate(templateHash.clone(), chunks, slots);
+        } catch (IOException | IllegalArgumentException e) {
+            // A DAMAGED FILE JUST MEANS WE COMPILE THE TEMPLATE AGAIN
+            return null;
+        }
+    }
+
+    /**
+     * Saves this compiled template to a file, from which it can be loaded
+     * again for as long as its template file doesn't change.
+     *
+     * @param compiledFile The file to save to.
+     *
+     * @throws IOException Thrown when the file cannot be written.
+     */
+    public void save(File compiledFile) throws IOException {
+        AtomicFileWriter.write(compiledFile.toPath(), (OutputStream os) -> {
+            DataOutputStream out = new DataOutputStream(os);
+            out.writeUTF(FILE_MAGIC);
+            out.writeInt(FILE_FORMAT_VERSION);
+            out.writeUTF(SERIALIZER_VERSION);
+            writeBytes(out, templateHash);
+            out.writeInt(slots.length);
+            for (CompiledSlot slot : slots) {
+                out.writeUTF(slot.slot.name());
+                out.writeInt(slot.context.size());
+                for (SplitTemplate.Part part : slot.context) {
+                    writePart(out, part);
+                }
+                writePart(out, slot.end);
+                writeBytes(out, slot.emptyContent);
+            }
+            for (byte[] chunk : chunks) {
+                writeBytes(out, chunk);
+            }
+            out.flush();
+        });
+    }
+
+    // BELOW ARE THE HELPERS FOR READING AND WRITING SAVED TEMPLATES. NOTE
+    // THAT THE PARTS SAVED NEVER INCLUDE SLOTS
+
+    private static void writePart(DataOutputStream out, SplitTemplate.Part part) throws IOException {
+        out.writeByte(part.type);
+        writeString(out, part.name);
+        if (part.attributes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(part.attributes.getLength());
+            for (int i = 0; i < part.attributes.getLength(); i++) {
+                writeString(out, part.attributes.getQName(i));
+                writeString(out, part.attributes.getValue(i));
+            }
+        }
+        writeString(out, (part.text == null) ? null : new String(part.text));
+    }
+
+    private static SplitTemplate.Part readPart(DataInputStream in) throws IOException {
+        int type = in.readByte();
+        String name = readString(in);
+        AttributesImpl attributes = null;
+        int attributeCount = in.readInt();
+        if (attributeCount >= 0) {
+            attributes = new AttributesImpl();
+            for (int i = 0; i < attributeCount; i++) {
+                String attributeName = readString(in);
+                attributes.addAttribute("", attributeName, attributeName,
+                        SplitTemplate.ATTRIBUTE_TYPE, readString(in));
+            }
+        }
+        String text = readString(in);
+        return new SplitTemplate.Part(type, name, attributes,
+                (text == null) ? null : text.toCharArray(), null);
+    }
+
+    // STRINGS MAY BE LONGER THAN writeUTF ALLOWS, SO WE WRITE THEM AS BYTES
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        writeBytes(out, (s == null) ? null : s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = readBytes(in);
+        return (bytes == null) ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static byte[] encode(String s) {
+        return s.getBytes(PAGE_CHARSET);
+    }
+
+    /**
+     * One slot of a compiled template, with what's needed to write its
+     * content just as it would be written in the page.
+     */
+    private static class CompiledSlot {
+
+        final PageSlot slot;
+        final List<SplitTemplate.Part> context;
+        final SplitTemplate.Part end;
+
+        // WHAT GOES IN THE PAGE WHEN THE SLOT HAS NO CONTENT
+        final byte[] emptyContent;
+
+        CompiledSlot(PageSlot initSlot, List<SplitTemplate.Part> initContext, SplitTemplate.Part initEnd,
+                byte[] initEmptyContent) {
+            slot = initSlot;
+            context = initContext;
+            end = initEnd;
+            emptyContent = initEmptyContent;
+        }
+
+        // WRITES THE SLOT'S CONTENT AND THE END OF ITS ELEMENT
+        byte[] render(Consumer<PageContent> slotContent)
+                throws SAXException, TransformerConfigurationException {
+            StringWriter out = new StringWriter();
+            TransformerHandler handler = XMLToolbox.newPageHandler(new StreamResult(out));
+            handler.startDocument();
+            for (SplitTemplate.Part part : context) {
+                part.writeTo(handler);
+            }
+            int contentStart = out.getBuffer().length();
+            StreamedPageContent.write(slotContent, handler);
+            end.writeTo(handler);
+            return encode(out.getBuffer().substring(contentStart));
+        }
+    }
+}
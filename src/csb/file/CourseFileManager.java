@@ -15,6 +15,8 @@ import java.util.List;
  */
 public interface CourseFileManager {
     public void                 saveCourse(Course courseToSave) throws IOException;
+    public void                 saveCourse(Course courseToSave, String coursePath) throws IOException;
+    public String               getCoursePath(Course course);
     public void                 loadCourse(Course courseToLoad, String coursePath) throws IOException;
     public void                 saveLastInstructor(Instructor lastInstructor, String filePath) throws IOException;    
     public Instructor           loadLastInstructor(String filePath) throws IOException;
@@ -5,36 +5,39 @@ import csb.data.Assignment;
 import csb.data.Course;
 import csb.data.CoursePage;
 import csb.data.Instructor;
-import csb.data.Lecture;
-import csb.data.ScheduleItem;
+import csb.data.SemesterCalendar;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
-import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import javax.swing.text.html.HTML;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.w3c.dom.Text;
 import org.xml.sax.SAXException;
 
 /**
@@ -43,6 +46,14 @@ import org.xml.sax.SAXException;
  * loaded first and that each course will have its own file exported to a
  * directory in the sitesDir directory.
  *
+ * The content of each page is generated into its template's slots through a
+ * PageContent, so it can either be built into a copy of the template's DOM and
+ * then saved, or streamed straight to the page's file along with the rest of
+ * the template, which is quicker and needs far less memory. Quickest of all is
+ * writing the page with its compiled template, where everything but the slots'
+ * content has already been written out. All of these produce exactly the same
+ * page.
+ *
  * @author Richard McKenna
  */
 public class CourseSiteExporter {
@@ -104,9 +115,53 @@ public class CourseSiteExporter {
     String baseDir;
     String sitesDir;
 
-    // WE'LL USE THIS VARIABLE TO KEEP TRACK OF EXPORTING PROGRESS
-    double perc = 0;
-    int pageIndex;
+    // THE BASE PAGES ARE ONLY PARSED ONCE, AFTER THAT EACH
+    // EXPORTED PAGE STARTS FROM A COPY KEPT HERE
+    SiteTemplateCache templateCache;
+
+    // THE TEMPLATES ARE COMPILED INTO THIS DIRECTORY IN THE SITES DIRECTORY
+    public static final String COMPILED_TEMPLATES_DIR = ".compiled_templates";
+
+    // THE STYLE SHEETS AND IMAGES ARE PUBLISHED TO EACH SITE BY THIS, WHICH
+    // KEEPS SHARED ASSETS IN THIS DIRECTORY IN THE SITES DIRECTORY
+    public static final String SHARED_ASSETS_DIR = ".assets";
+    AssetPublisher assetPublisher;
+
+    // PAGES ARE SERIALIZED INTO A BUFFER THAT STARTS OUT THIS BIG
+    public static final int PAGE_BUFFER_SIZE = 16 * 1024;
+
+    // THE PAGES OF A SITE DON'T DEPEND ON ONE ANOTHER, SO WE CAN BUILD
+    // AND SAVE THEM AT THE SAME TIME USING A BOUNDED POOL OF THREADS
+    public static final int DEFAULT_EXPORT_THREADS
+            = Math.min(CoursePage.values().length, Runtime.getRuntime().availableProcessors());
+    int exportThreads;
+    ExecutorService pageExecutor;
+
+    // ONCE A PAGE IS BUILT AND SERIALIZED, IT'S WRITTEN TO ITS FILE BY THE
+    // WRITER THREADS OF THIS PIPELINE, SO THE THREADS BUILDING PAGES NEVER
+    // WAIT ON THE DISK UNLESS THE PIPELINE IS FULL
+    int writerThreads;
+    PageWritePipeline writePipeline;
+
+    // WHEN THIS IS ON, PAGES WHOSE INPUTS HAVEN'T CHANGED SINCE THEY
+    // WERE LAST EXPORTED ARE NOT BUILT OR WRITTEN AGAIN
+    boolean incrementalExport;
+
+    /**
+     * The ways a page can be rendered.
+     */
+    public enum PageRenderer {
+        // BUILD A DOM FROM A COPY OF THE TEMPLATE, THEN SAVE IT
+        DOM,
+        // WRITE THE TEMPLATE AND CONTENT STRAIGHT TO THE FILE
+        STREAMING,
+        // WRITE THE COMPILED TEMPLATE'S CHUNKS AND THE CONTENT TO THE FILE,
+        // STREAMING PAGES WHOSE TEMPLATES CAN'T BE COMPILED
+        COMPILED
+    }
+
+    // HOW PAGES ARE RENDERED
+    volatile PageRenderer pageRenderer;
 
     /**
      * This constructor initializes this exporter to load the schedule page from
@@ -121,13 +176,139 @@ public class CourseSiteExporter {
     public CourseSiteExporter(String initBaseDir, String initSitesDir) {
         baseDir = initBaseDir;
         sitesDir = initSitesDir;
+        templateCache = new SiteTemplateCache(new File(sitesDir, COMPILED_TEMPLATES_DIR).getPath());
+        assetPublisher = new AssetPublisher(baseDir, new File(sitesDir, SHARED_ASSETS_DIR).getPath(),
+                CSS_DIR, IMAGES_DIR);
+        exportThreads = DEFAULT_EXPORT_THREADS;
+        writerThreads = PageWritePipeline.DEFAULT_WRITER_THREADS;
+        incrementalExport = true;
+        pageRenderer = PageRenderer.COMPILED;
+    }
+
+    /**
+     * Mutator method for how the style sheets and images are published to
+     * each site. Copying is the default.
+     *
+     * @param initAssetStrategy The strategy to publish assets with from now
+     * on.
+     */
+    public void setAssetStrategy(AssetPublisher.Strategy initAssetStrategy) {
+        assetPublisher.setStrategy(initAssetStrategy);
+    }
+
+    /**
+     * Accessor method for how the style sheets and images are published to
+     * each site.
+     *
+     * @return The strategy assets are published with.
+     */
+    public AssetPublisher.Strategy getAssetStrategy() {
+        return assetPublisher.getStrategy();
+    }
+
+    /**
+     * Mutator method for how pages are rendered. Compiled templates are the
+     * default, but pages can also be streamed from their templates, or built
+     * as DOMs first, which is how pages used to be exported. Every renderer
+     * produces the same files.
+     *
+     * @param initPageRenderer The renderer to use for pages exported from now
+     * on.
+     */
+    public void setPageRenderer(PageRenderer initPageRenderer) {
+        pageRenderer = initPageRenderer;
+    }
+
+    /**
+     * Accessor method for how pages are rendered.
+     *
+     * @return The renderer used for exporting pages.
+     */
+    public PageRenderer getPageRenderer() {
+        return pageRenderer;
+    }
+
+    /**
+     * Mutator method for turning incremental exporting on or off. When it is
+     * on, the fingerprint of every page is compared to the one recorded in the
+     * site's ExportManifest and only pages that have changed are exported.
+     *
+     * @param initIncrementalExport true to skip unchanged pages, false to
+     * always export every page.
+     */
+    public void setIncrementalExport(boolean initIncrementalExport) {
+        incrementalExport = initIncrementalExport;
+    }
+
+    /**
+     * Accessor method for testing whether unchanged pages are skipped.
+     *
+     * @return true if unchanged pages are skipped, false otherwise.
+     */
+    public boolean isIncrementalExport() {
+        return incrementalExport;
+    }
+
+    /**
+     * Mutator method for the number of pages of a site that may be exported at
+     * the same time. Note that using a single thread means pages will be
+     * exported one after another on the thread doing the exporting.
+     *
+     * @param initExportThreads The maximum number of pages to export at once.
+     */
+    public synchronized void setExportThreads(int initExportThreads) {
+        if (pageExecutor != null) {
+            pageExecutor.shutdown();
+            pageExecutor = null;
+        }
+        exportThreads = Math.max(1, initExportThreads);
+    }
+
+    /**
+     * Accessor method for the number of pages of a site that may be exported
+     * at the same time.
+     *
+     * @return The maximum number of pages exported at once.
+     */
+    public synchronized int getExportThreads() {
+        return exportThreads;
+    }
+
+    /**
+     * Mutator method for the number of threads that write exported pages to
+     * their files. Note that with no writer threads each page is written by
+     * the thread that built it as soon as it's built.
+     *
+     * @param initWriterThreads The number of pages to write at the same time,
+     * or 0 to write them on the threads building them.
+     */
+    public synchronized void setWriterThreads(int initWriterThreads) {
+        if (writePipeline != null) {
+            writePipeline.shutdown();
+            writePipeline = null;
+        }
+        writerThreads = Math.max(0, initWriterThreads);
+    }
+
+    /**
+     * Accessor method for the number of threads that write exported pages to
+     * their files.
+     *
+     * @return The number of pages written at the same time, 0 meaning pages
+     * are written on the threads building them.
+     */
+    public synchronized int getWriterThreads() {
+        return writerThreads;
     }
 
     /**
      * This method is the facade to a lot of work done to export the site. It
      * will setup the necessary course directory if it doesn't already exist and
      * copy the needed stylesheets and images and will then export the necessary
-     * pages.
+     * pages. Note that the pages are built at the same time when more than one
+     * export thread is allowed, and written by the writer threads while later
+     * pages are still being built, and that the exporter keeps no state for
+     * any particular page, so it may be used by multiple threads.
      *
      * @param courseToExport Course whose site is being built.
      *
@@ -135,22 +316,45 @@ public class CourseSiteExporter {
      * creating the course site directory and/or files.
      */
     public void exportCourseSite(Course courseToExport) throws Exception {
-        // GET THE DIRECTORY TO EXPORT THE SITE
-        String courseExportPath = (new File(sitesDir) + SLASH)
-                + courseToExport.getSubject() + courseToExport.getNumber();
+        exportCourseSite(courseToExport, ExportProgressListener.NONE);
+    }
 
-        // FIRST EXPORT ANCILLARY FILES LIKE STYLE SHEETS AND IMAGES. NOTE
-        // THAT THIS ONLY NEEDS TO BE DONE ONCE FOR EACH COURSE
-        if (!new File(courseExportPath).exists()) {
-            setupCourseSite(courseExportPath);
+    /**
+     * This method exports the site just like exportCourseSite(Course), but
+     * reports its progress to the provided listener as it goes, and stops as
+     * soon as the listener says it has been cancelled.
+     *
+     * @param courseToExport Course whose site is being built.
+     * @param progress The listener to report progress to.
+     *
+     * @throws CancellationException Thrown when the listener cancels the
+     * export before it is done.
+     * @throws IOException This exception is thrown when a problem occurs
+     * creating the course site directory and/or files.
+     */
+    public void exportCourseSite(Course courseToExport, ExportProgressListener progress) throws Exception {
+        // GET THE SITE READY AND FIGURE OUT WHICH PAGES WE'LL NEED
+        CourseExport export = startCourseExport(courseToExport);
+        progress.exportStarted(courseToExport, export.pagesToExport.size());
+        if (export.pagesToExport.isEmpty()) {
+            return;
         }
 
-        CoursePage[] pages = CoursePage.values();
-        for (pageIndex = 0; pageIndex < pages.length; pageIndex++) {
-            if (courseToExport.hasCoursePage(pages[pageIndex])) {
-                // CALCULATE THE PROGRESS
-                exportPage(pages[pageIndex], courseToExport, courseExportPath);
+        // AND EXPORT THEM, EITHER ONE AT A TIME OR ALL AT ONCE
+        try {
+            ExecutorService executor = getPageExecutor();
+            if ((executor == null) || (export.pagesToExport.size() < 2)) {
+                for (CoursePage page : export.pagesToExport) {
+                    exportCoursePage(export, page, progress);
+                }
+            } else {
+                exportPagesInParallel(executor, export, progress);
             }
+
+            // THE PAGES ARE BUILT, BUT THEY MAY NOT ALL BE WRITTEN YET
+            PageWritePipeline.await(export.getPendingWrites());
+        } finally {
+            finishCourseExport(export);
         }
     }
 
@@ -162,43 +366,33 @@ public class CourseSiteExporter {
      * @param courseExportPath The directory where courseToExport's site pages
      * are to be exported to.
      *
-     * @throws IOException Thrown when there is a problem exporting the schedule
-     * page for this site.
+     * @throws IOException Thrown when there is a problem building or writing
+     * the page.
      */
     public void exportPage(CoursePage page, Course courseToExport, String courseExportPath)
             throws IOException {
-        try {
-            // NOW THAT EVERYTHING IS SETUP, BUILD THE PAGE DOCUMENT
-            Document doc;
-            String pageFile;
-
-            if (page == CoursePage.INDEX) {
-                doc = buildIndexPage(courseToExport);
-                pageFile = INDEX_PAGE;
-            } else if (page == CoursePage.SYLLABUS) {
-                doc = buildSyllabusPage(courseToExport);
-                pageFile = SYLLABUS_PAGE;
-            } else if (page == CoursePage.SCHEDULE) {
-                doc = buildSchedulePage(courseToExport);
-                pageFile = SCHEDULE_PAGE;
-            } else if (page == CoursePage.HWS) {
-                doc = buildHWsPage(courseToExport);
-                pageFile = HWS_PAGE;
-            } else {
-                doc = buildProjectsPage(courseToExport);
-                pageFile = PROJECTS_PAGE;
-            }
-
-            // AND SAVE IT TO A FILE
-            saveDocument(doc, courseExportPath + SLASH + pageFile);
+        exportPage(page, courseToExport, courseExportPath, ExportProgressListener.NONE);
+    }
 
-            // NOTE THAT IF ANYTHING GOES WRONG WE WILL REFLECT AND/OR PASS ALL EXCEPTIONS
-        } catch (TransformerException | SAXException | ParserConfigurationException exception) {
-            // WE ARE GOING TO REFLECT ALL OF THESE EXCEPTIONS AS
-            // IOExceptions, WHICH WE'LL HANDLE TOGETHER
-            //throw new IOException(exception.getMessage());
-            System.out.println("COULD NOT LOAD PAGE");
-        }
+    /**
+     * This function exports the course pages to html files, reporting its
+     * progress to the provided listener.
+     *
+     * @param page Page to export.
+     * @param courseToExport Course whose site we are to export.
+     * @param courseExportPath The directory where courseToExport's site pages
+     * are to be exported to.
+     * @param progress The listener to report progress to.
+     *
+     * @throws CancellationException Thrown when the listener cancels the
+     * export before the page is written.
+     * @throws IOException Thrown when there is a problem building or writing
+     * the page, which will be the cause if it wasn't an IOException itself.
+     */
+    public void exportPage(CoursePage page, Course courseToExport, String courseExportPath,
+            ExportProgressListener progress) throws IOException {
+        PageWritePipeline.await(Collections.singletonList(
+                startPageExport(page, courseToExport, courseExportPath, progress)));
     }
 
     /**
@@ -224,358 +418,479 @@ public class CourseSiteExporter {
     }
 
     // BELOW ARE ALL THE PRIVATE HELPER METHODS
-    private Document initDoc(Course courseToExport, CoursePage page, String pageFileName) throws SAXException, TransformerException, IOException, ParserConfigurationException {
-        // BUILD THE PATH
-        String path = baseDir + SLASH + pageFileName;
 
-        // NOW LOAD THE DOCUMENT
-        DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-        Document doc = docBuilder.parse(path);
+    // COMPUTES THE FINGERPRINT OF EVERYTHING A PAGE IS BUILT FROM
+    private String fingerprintPage(CoursePage page, Course courseToExport)
+            throws IOException, SAXException, ParserConfigurationException {
+        byte[] templateHash = templateCache.getTemplateHash(baseDir + SLASH + getLink(page));
+        return PageFingerprint.fingerprintPage(page, courseToExport, templateHash);
+    }
 
-        // UPDATE THE PAGE HEADER
-        Node titleNode = doc.getElementsByTagName(HTML.Tag.TITLE.toString()).item(0);
-        titleNode.setTextContent(courseToExport.getSubject() + " "
-                + courseToExport.getNumber());
+    // BUILDS AND SERIALIZES A PAGE AND THEN HANDS IT OFF TO BE WRITTEN,
+    // RETURNING WHAT WILL COMPLETE ONCE IT HAS BEEN
+    private CompletableFuture<Void> startPageExport(CoursePage page, Course courseToExport,
+            String courseExportPath, ExportProgressListener progress) throws IOException {
+        checkCancelled(progress);
+        progress.pageStarted(page);
+        String pagePath = courseExportPath + SLASH + getLink(page);
+        byte[] pageBytes = renderPage(page, courseToExport);
+        progress.pageBuilt(page);
+
+        // WRITE IT TO A FILE, UNLESS WE'VE BEEN TOLD TO STOP
+        checkCancelled(progress);
+        Runnable onWritten = () -> progress.pageWritten(page, pageBytes.length);
+        PageWritePipeline pipeline = getWritePipeline();
+        if (pipeline == null) {
+            PageWritePipeline.writeFile(pagePath, pageBytes);
+            onWritten.run();
+            return CompletableFuture.completedFuture(null);
+        }
+        return pipeline.write(pagePath, pageBytes, onWritten);
+    }
 
-        // ADD THE NAVBAR LINKS
-        appendNavbarLinks(doc, courseToExport, page);
+    // BUILDS A PAGE AND SERIALIZES IT, USING THE CURRENT RENDERER
+    private byte[] renderPage(CoursePage page, Course courseToExport) throws IOException {
+        try {
+            // WORK OUT WHAT GOES IN THE PAGE
+            String templatePath = baseDir + SLASH + getLink(page);
+            EnumMap<PageSlot, Consumer<PageContent>> content = getPageContent(page, courseToExport);
+            PageRenderer renderer = pageRenderer;
+            CompiledTemplate compiledTemplate = null;
+            if (renderer == PageRenderer.COMPILED) {
+                compiledTemplate = templateCache.getCompiledTemplate(templatePath);
+            }
 
-        // SET THE BANNER
-        setBanner(doc, courseToExport);
+            // AND PUT IT TOGETHER WITH THE TEMPLATE
+            ByteArrayOutputStream out = new ByteArrayOutputStream(PAGE_BUFFER_SIZE);
+            if (compiledTemplate != null) {
+                // ALL THAT'S LEFT TO BUILD IS THE SLOTS' CONTENT
+                compiledTemplate.write(content, out);
+            } else if (renderer == PageRenderer.DOM) {
+                saveDocument(buildPage(templatePath, content), out);
+            } else {
+                streamPage(templateCache.getSplitTemplate(templatePath), content, out);
+            }
+            return out.toByteArray();
 
-        // AND ADD THE INSTRUCTOR
-        appendInstructor(doc, courseToExport.getInstructor());
+            // NOTE THAT IF ANYTHING GOES WRONG WE WILL REFLECT AND/OR PASS ALL EXCEPTIONS
+        } catch (TransformerException | SAXException | ParserConfigurationException exception) {
+            // WE ARE GOING TO REFLECT ALL OF THESE EXCEPTIONS AS
+            // IOExceptions, WHICH WE'LL HANDLE TOGETHER
+            throw new IOException("Could not export the " + page + " page of "
+                    + courseToExport.getSubject() + courseToExport.getNumber(), exception);
+        }
+    }
 
-        // AND RETURN
-        return doc;
+    // STOPS THE EXPORT IF THE LISTENER SAYS IT HAS BEEN CANCELLED
+    private void checkCancelled(ExportProgressListener progress) {
+        if (progress.isCancelled()) {
+            throw new CancellationException();
+        }
     }
 
-    // BUILDS AN INDEX PAGE AND RETURNS IT AS A SINGLE Document
-    private Document buildIndexPage(Course courseToExport) throws SAXException, TransformerException, IOException, ParserConfigurationException {
-        // GET A NEW DOC
-        Document indexDoc = initDoc(courseToExport, CoursePage.INDEX, INDEX_PAGE);
+    // GETS A COURSE'S SITE READY TO HAVE ITS PAGES EXPORTED, WORKING OUT
+    // WHICH PAGES THOSE ARE. NOTE THAT THE PAGES MAY THEN BE EXPORTED BY ANY
+    // NUMBER OF THREADS, AFTER WHICH THE EXPORT MUST BE FINISHED
+    CourseExport startCourseExport(Course courseToExport)
+            throws IOException, SAXException, ParserConfigurationException {
+        // GET THE DIRECTORY TO EXPORT THE SITE
+        String courseExportPath = (new File(sitesDir) + SLASH)
+                + courseToExport.getSubject() + courseToExport.getNumber();
 
-        // NOW DO THE STUFF SPECIFIC TO AN INDEX PAGE
-        fillInlinedCourseDescription(indexDoc, courseToExport);
+        // FIRST EXPORT ANCILLARY FILES LIKE STYLE SHEETS AND IMAGES. NOTE
+        // THAT ONLY THE ONES THAT HAVE CHANGED SINCE THE LAST EXPORT ARE
+        setupCourseSite(courseExportPath);
+
+        // FIGURE OUT WHICH PAGES WE'LL NEED, SKIPPING THE ONES THAT ARE
+        // ALREADY UP TO DATE IF WE'RE EXPORTING INCREMENTALLY
+        ExportManifest manifest = incrementalExport ? new ExportManifest(courseExportPath) : null;
+        CourseExport export = new CourseExport(courseToExport, courseExportPath, manifest);
+        for (CoursePage page : CoursePage.values()) {
+            if (courseToExport.hasCoursePage(page)) {
+                if (manifest != null) {
+                    String fingerprint = fingerprintPage(page, courseToExport);
+                    File pageFile = new File(courseExportPath + SLASH + getLink(page));
+                    if (manifest.isUpToDate(page, fingerprint) && pageFile.exists()) {
+                        export.pagesUpToDate++;
+                        continue;
+                    }
+                    export.fingerprints.put(page, fingerprint);
+                }
+                export.pagesToExport.add(page);
+            }
+        }
+        return export;
+    }
 
-        // AND RETURN THE FULL PAGE DOM
-        return indexDoc;
+    // BUILDS ONE OF THE PAGES OF A COURSE EXPORT AND HANDS IT OFF TO BE
+    // WRITTEN, AFTER WHICH THE MANIFEST, IF THERE IS ONE, IS UPDATED TO MATCH.
+    // WHAT'S RETURNED COMPLETES ONCE THAT'S ALL DONE
+    CompletableFuture<Void> exportCoursePage(CourseExport export, CoursePage page,
+            ExportProgressListener progress) throws IOException {
+        if (export.manifest != null) {
+            // IF WE DON'T FINISH, MAKE SURE THE PAGE ISN'T TAKEN AS UP TO DATE
+            export.manifest.removeFingerprint(page);
+        }
+        CompletableFuture<Void> exported = startPageExport(page, export.course,
+                export.courseExportPath, progress);
+        if (export.manifest != null) {
+            String fingerprint = export.fingerprints.get(page);
+            exported = exported.thenRun(() -> export.manifest.setFingerprint(page, fingerprint));
+        }
+        export.addPendingWrite(exported);
+        return exported;
     }
 
-    // BUILDS AN INDEX PAGE AND RETURNS IT AS A SINGLE Document
-    private Document buildSyllabusPage(Course courseToExport) throws SAXException, TransformerException, IOException, ParserConfigurationException {
-        // GET A NEW DOC
-        Document doc = initDoc(courseToExport, CoursePage.SYLLABUS, SYLLABUS_PAGE);
+    // FINISHES A COURSE EXPORT, WHETHER ALL ITS PAGES WERE EXPORTED OR NOT,
+    // WAITING FOR ALL ITS PAGES TO BE WRITTEN FIRST
+    void finishCourseExport(CourseExport export) throws IOException {
+        try {
+            PageWritePipeline.await(export.getPendingWrites());
+        } catch (IOException | RuntimeException e) {
+            // A PAGE THAT COULDN'T BE WRITTEN IS REPORTED BY WHOEVER EXPORTED
+            // IT, ALL THAT MATTERS HERE IS THAT IT'S NOT IN THE MANIFEST
+        }
 
-        // NOW DO THE STUFF SPECIFIC TO AN INDEX PAGE
-        // @todo
-        // AND RETURN THE FULL PAGE DOM
-        return doc;
+        // REMEMBER WHAT WE EXPORTED FOR NEXT TIME
+        if (export.manifest != null) {
+            export.manifest.save();
+        }
+    }
+
+    // GETS THE POOL USED FOR EXPORTING PAGES AT THE SAME TIME, NOTE
+    // THAT THERE IS NO POOL WHEN WE'RE EXPORTING ONE PAGE AT A TIME
+    private synchronized ExecutorService getPageExecutor() {
+        if ((pageExecutor == null) && (exportThreads > 1)) {
+            pageExecutor = Executors.newFixedThreadPool(exportThreads, (Runnable r) -> {
+                Thread exportThread = new Thread(r, "Page Export");
+                exportThread.setDaemon(true);
+                return exportThread;
+            });
+        }
+        return pageExecutor;
     }
 
-    // BUILDS A SCHEDULE PAGE AND RETURNS IT AS A SINGLE Document
-    private Document buildSchedulePage(Course courseToExport) throws SAXException, TransformerException, IOException, ParserConfigurationException {
-        // GET A NEW DOC
-        Document scheduleDoc = initDoc(courseToExport, CoursePage.SCHEDULE, SCHEDULE_PAGE);
+    // GETS THE PIPELINE PAGES ARE WRITTEN BY, NOTE THAT THERE IS NO PIPELINE
+    // WHEN PAGES ARE WRITTEN BY THE THREADS BUILDING THEM
+    private synchronized PageWritePipeline getWritePipeline() {
+        if ((writePipeline == null) && (writerThreads > 0)) {
+            writePipeline = new PageWritePipeline(writerThreads, PageWritePipeline.DEFAULT_MAX_BUFFERED_BYTES);
+        }
+        return writePipeline;
+    }
 
-        // NOW BUILD THE SCHEDULE TABLE
-        fillScheduleTable(scheduleDoc, courseToExport);
+    // EXPORTS ALL THE PAGES AT THE SAME TIME, WAITING FOR THEM ALL TO FINISH
+    private void exportPagesInParallel(ExecutorService executor, CourseExport export,
+            ExportProgressListener progress) throws Exception {
+        ArrayList<Future<Void>> pageExports = new ArrayList();
+        for (CoursePage page : export.pagesToExport) {
+            pageExports.add(executor.submit(() -> {
+                exportCoursePage(export, page, progress);
+                return null;
+            }));
+        }
 
-        // AND RETURN THE FULL PAGE DOM
-        return scheduleDoc;
+        // NOTE THAT WE WAIT FOR EVERY PAGE EVEN IF ONE FAILS SO THAT NO
+        // PAGE IS STILL BEING WRITTEN WHEN WE REPORT THE PROBLEM
+        Exception firstFailure = null;
+        for (Future<Void> pageExport : pageExports) {
+            try {
+                pageExport.get();
+            } catch (ExecutionException ee) {
+                if (firstFailure == null) {
+                    firstFailure = (ee.getCause() instanceof Exception) ? (Exception) ee.getCause() : ee;
+                }
+            }
+        }
+        if (firstFailure != null) {
+            throw firstFailure;
+        }
     }
 
-    // BUILDS A HWS PAGE AND RETURNS IT AS A SINGLE Document
-    private Document buildHWsPage(Course courseToExport) throws SAXException, TransformerException, IOException, ParserConfigurationException {
-        // GET A NEW DOC
-        Document hwsDoc = initDoc(courseToExport, CoursePage.HWS, HWS_PAGE);
+    /**
+     * Everything about the export of one course's site that its pages need
+     * to share, from when the site is set up until the export is finished.
+     */
+    static class CourseExport {
 
-        // MISSING UPDATING THE TABLE
-        fillHomeworkTable(hwsDoc, courseToExport);
-        // AND RETURN THE FULL PAGE DOM
-        return hwsDoc;
+        final Course course;
+        final String courseExportPath;
+
+        // THIS IS NULL WHEN WE'RE NOT EXPORTING INCREMENTALLY
+        final ExportManifest manifest;
+
+        // THE PAGES THAT NEED EXPORTING AND WHAT THEIR FINGERPRINTS WILL BE
+        final ArrayList<CoursePage> pagesToExport;
+        final HashMap<CoursePage, String> fingerprints;
+
+        // HOW MANY PAGES WERE ALREADY UP TO DATE
+        int pagesUpToDate;
+
+        // THE PAGES THAT HAVE BEEN HANDED OFF TO BE WRITTEN
+        private final ArrayList<CompletableFuture<Void>> pendingWrites;
+
+        CourseExport(Course initCourse, String initCourseExportPath, ExportManifest initManifest) {
+            course = initCourse;
+            courseExportPath = initCourseExportPath;
+            manifest = initManifest;
+            pagesToExport = new ArrayList();
+            fingerprints = new HashMap();
+            pendingWrites = new ArrayList();
+        }
+
+        synchronized void addPendingWrite(CompletableFuture<Void> write) {
+            pendingWrites.add(write);
+        }
+
+        synchronized List<CompletableFuture<Void>> getPendingWrites() {
+            return new ArrayList(pendingWrites);
+        }
     }
 
-    // BUILDS A HWS PAGE AND RETURNS IT AS A SINGLE Document
-    private Document buildProjectsPage(Course courseToExport) throws SAXException, TransformerException, IOException, ParserConfigurationException {
-        // GET A NEW DOC
-        Document projectsDoc = initDoc(courseToExport, CoursePage.PROJECTS, PROJECTS_PAGE);
+    // GETS WHAT GOES IN EACH SLOT OF A PAGE, WHICH IS THE SAME WHETHER
+    // THE PAGE IS BUILT AS A DOM OR STREAMED STRAIGHT TO ITS FILE
+    private EnumMap<PageSlot, Consumer<PageContent>> getPageContent(CoursePage page, Course courseToExport) {
+        EnumMap<PageSlot, Consumer<PageContent>> content = new EnumMap(PageSlot.class);
+
+        // EVERY PAGE HAS THE SAME HEADER, NAVBAR, BANNER AND INSTRUCTOR
+        content.put(PageSlot.TITLE, title -> title.appendText(courseToExport.getSubject() + " "
+                + courseToExport.getNumber()));
+        content.put(PageSlot.NAVBAR, navbar -> appendNavbarLinks(navbar, courseToExport, page));
+        content.put(PageSlot.BANNER, banner -> setBanner(banner, courseToExport));
+        content.put(PageSlot.INSTRUCTOR_LINK, instructorSpan -> appendInstructor(instructorSpan,
+                courseToExport.getInstructor()));
 
+        // NOW DO THE STUFF SPECIFIC TO EACH PAGE. NOTE THAT THE SYLLABUS AND
         // PROJECTS PAGES DON'T HAVE ANYTHING INTERESTING WHEN THE SEMESTER STARTS
+        if (page == CoursePage.INDEX) {
+            content.put(PageSlot.INLINED_COURSE, inlinedCourseSpan
+                    -> fillInlinedCourseDescription(inlinedCourseSpan, courseToExport));
+        } else if (page == CoursePage.SCHEDULE) {
+            content.put(PageSlot.SCHEDULE, scheduleTable -> fillScheduleTable(scheduleTable, courseToExport));
+        } else if (page == CoursePage.HWS) {
+            content.put(PageSlot.HWS, hwsTable -> fillHomeworkTable(hwsTable, courseToExport));
+        }
+        return content;
+    }
+
+    // BUILDS A PAGE FROM A COPY OF ITS TEMPLATE AND RETURNS IT AS A SINGLE Document
+    private Document buildPage(String templatePath, Map<PageSlot, Consumer<PageContent>> content)
+            throws SAXException, IOException, ParserConfigurationException {
+        // GET OUR OWN COPY OF THE DOCUMENT
+        Document doc = templateCache.getTemplate(templatePath);
+
+        // AND FILL IN EACH OF ITS SLOTS
+        for (Map.Entry<PageSlot, Consumer<PageContent>> slotContent : content.entrySet()) {
+            PageSlot slot = slotContent.getKey();
+            Node slotNode = getSlotNode(doc, slot);
+            if (slotNode == null) {
+                continue;
+            }
+            if (slot.isReplacingContent()) {
+                while (slotNode.getFirstChild() != null) {
+                    slotNode.removeChild(slotNode.getFirstChild());
+                }
+            }
+            slotContent.getValue().accept(new DOMPageContent(doc, slotNode));
+        }
+
         // AND RETURN THE FULL PAGE DOM
-        return projectsDoc;
+        return doc;
+    }
+
+    // FINDS THE ELEMENT OF A PAGE THAT IS ONE OF ITS SLOTS
+    private Node getSlotNode(Document doc, PageSlot slot) {
+        if (slot.getId() != null) {
+            return getNodeWithId(doc, slot.getTag(), slot.getId());
+        } else if (slot.getClassName() != null) {
+            return getNodeWithClass(doc, slot.getTag(), slot.getClassName());
+        } else {
+            return doc.getElementsByTagName(slot.getTag()).item(0);
+        }
     }
 
     // INITIALIZES ALL THE HELPER FILES AND DIRECTORIES, LIKE FOR CSS
     private void setupCourseSite(String exportPath) throws IOException {
         // FIRST MAKE THE FOLDERS
         File siteDir = new File(exportPath);
-        siteDir.mkdir();
+        siteDir.mkdirs();
         File cssDir = new File(exportPath + SLASH + CSS_DIR);
         cssDir.mkdir();
         File imagesDir = new File(exportPath + SLASH + IMAGES_DIR);
         imagesDir.mkdir();
 
-        // THEN COPY THE STYLESHEETS OVER
-        File baseCSSDir = new File(baseDir + "/" + CSS_DIR);
-        File[] cssFiles = baseCSSDir.listFiles();
-        for (int i = 0; i < cssFiles.length; i++) {
-            File cssFile = new File(cssDir + SLASH + cssFiles[i].getName());
-            Files.copy(cssFiles[i].toPath(), cssFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-        }
-
-        // AND THEN COPY THE IMAGES OVER
-        File baseImagesDir = new File(baseDir + "/" + IMAGES_DIR);
-        File[] imageFiles = baseImagesDir.listFiles();
-        for (int i = 0; i < imageFiles.length; i++) {
-            File imageFile = new File(imagesDir + "/" + imageFiles[i].getName());
-            Files.copy(imageFiles[i].toPath(), imageFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-        }
+        // THEN BRING THE STYLESHEETS AND IMAGES UP TO DATE
+        assetPublisher.publish(exportPath);
     }
 
     // APPENDS THE ISNTRUCTOR TO THE BOTTOM OF THE PAGE
-    private void appendInstructor(Document pageDoc, Instructor courseInstructor) {
-        Node instructorSpan = (Element) getNodeWithId(pageDoc, HTML.Tag.SPAN.toString(), ID_INSTRUCTOR_LINK);
-        Element instructorLinkElement = pageDoc.createElement(HTML.Tag.A.toString());
-        instructorLinkElement.setAttribute(HTML.Attribute.HREF.toString(), courseInstructor.getHomepageURL());
-        instructorLinkElement.setTextContent(courseInstructor.getName());
-        instructorSpan.appendChild(instructorLinkElement);
+    private void appendInstructor(PageContent instructorSpan, Instructor courseInstructor) {
+        instructorSpan.startElement(HTML.Tag.A.toString());
+        instructorSpan.setAttribute(HTML.Attribute.HREF.toString(), courseInstructor.getHomepageURL());
+        if (courseInstructor.getName() != null) {
+            instructorSpan.appendText(courseInstructor.getName());
+        }
+        instructorSpan.endElement();
     }
 
     // FILS THE INLINED COURSE DESCRIPTION IN THE INDEX PAGE
-    private void fillInlinedCourseDescription(Document indexDoc, Course courseToExport) {
-        Node inlinedCourseSpan = (Element) getNodeWithId(indexDoc, HTML.Tag.SPAN.toString(), ID_INLINED_COURSE);
-        Text text = indexDoc.createTextNode(courseToExport.getSubject().toString() + courseToExport.getNumber());
-        inlinedCourseSpan.appendChild(text);
-    }
-
-    // FILLS IN THE SCHEDULE PAGE'S SCHEDULE TABLE
-    private void fillScheduleTable(Document scheduleDoc, Course courseToExport) {
-        LocalDate countingDate = courseToExport.getStartingMonday().minusDays(0);
-        int lectureCounter = 1;
-        int lectureNum = 0;
-        List<DayOfWeek> lectureList = courseToExport.getLectureDays();
-        List<Lecture> lectures = courseToExport.getLectures();
-        List<Assignment> assignments = courseToExport.getAssignments();
-        int assignmentNum = 0;
-        int sessionNum = lectures.get(0).getSessions();
-        
-        HashMap<LocalDate, ScheduleItem> scheduleItemMappings = courseToExport.getScheduleItemMappings();
+    private void fillInlinedCourseDescription(PageContent inlinedCourseSpan, Course courseToExport) {
+        inlinedCourseSpan.appendText(courseToExport.getSubject().toString() + courseToExport.getNumber());
+    }
 
-        while (countingDate.isBefore(courseToExport.getEndingFriday())
-                || countingDate.isEqual(courseToExport.getEndingFriday())) {
+    // FILLS IN THE SCHEDULE PAGE'S SCHEDULE TABLE, ONE WEEK OF THE
+    // SEMESTER CALENDAR AT A TIME
+    private void fillScheduleTable(PageContent scheduleTable, Course courseToExport) {
+        SemesterCalendar calendar = SemesterCalendar.build(courseToExport);
+        for (SemesterCalendar.Week week : calendar.getWeeks()) {
             // ADD THE MONDAY-FRIDAY HEADERS            
             // FIRST FOR EACH WEEK MAKE A TABLE ROW            
-            Element dowRowHeaderElement = scheduleDoc.createElement(HTML.Tag.TR.toString());
+            scheduleTable.startElement(HTML.Tag.TR.toString());
 
             // AND ADD DAY OF THE WEEK TABLE HEADERS
-            addDayOfWeekHeader(scheduleDoc, dowRowHeaderElement, MONDAY_HEADER);
-            addDayOfWeekHeader(scheduleDoc, dowRowHeaderElement, TUESDAY_HEADER);
-            addDayOfWeekHeader(scheduleDoc, dowRowHeaderElement, WEDNESDAY_HEADER);
-            addDayOfWeekHeader(scheduleDoc, dowRowHeaderElement, THURSDAY_HEADER);
-            addDayOfWeekHeader(scheduleDoc, dowRowHeaderElement, FRIDAY_HEADER);
+            addDayOfWeekHeader(scheduleTable, MONDAY_HEADER);
+            addDayOfWeekHeader(scheduleTable, TUESDAY_HEADER);
+            addDayOfWeekHeader(scheduleTable, WEDNESDAY_HEADER);
+            addDayOfWeekHeader(scheduleTable, THURSDAY_HEADER);
+            addDayOfWeekHeader(scheduleTable, FRIDAY_HEADER);
+            scheduleTable.endElement();
 
             // NOW ADD ALL THE DAYS    
-            Element dowRowElement = scheduleDoc.createElement(HTML.Tag.TR.toString());
-            
-            // MONDAY - FRIDAY
-            for (int i = 0; i < 5; i++) {
+            scheduleTable.startElement(HTML.Tag.TR.toString());
+            for (SemesterCalendar.Day day : week.getDays()) {
                 // FIRST ADD THE DAY, GIVING IT AN ID OF THE DATE ITSELF
-                Element dayCell = addDayOfWeekCell(scheduleDoc, dowRowElement, countingDate);
-
-                // IS THERE A SCHEDULE ITEM FOR THAT DAY?
-                ScheduleItem scheduleItem = scheduleItemMappings.get(countingDate);
-                if (scheduleItem != null) {
-                    // SET THE DATE TO A HOLDIAY
-                    dayCell.setAttribute(HTML.Attribute.CLASS.toString(), CLASS_HOLIDAY);
-
-                    // ADD A LINK 
-                    Element holidayLinkElement = scheduleDoc.createElement(HTML.Tag.A.toString());
-                    holidayLinkElement.setAttribute(HTML.Attribute.HREF.toString(), scheduleItem.getLink());
-                    dayCell.appendChild(holidayLinkElement);
-
-                    // ADD THE TEXT TO THE LINK
-                    Text linkText = scheduleDoc.createTextNode(scheduleItem.getDescription());
-                    dayCell.appendChild(linkText);
-                    holidayLinkElement.appendChild(linkText);
-
-                    // AND NOW ADD 6 LINE BREAKS
-                    for (int brCounter = 0; brCounter < 8; brCounter++) {
-                        Element br = scheduleDoc.createElement(HTML.Tag.BR.toString());
-                        dayCell.appendChild(br);
-                    }
+                // AND A CLASS SAYING WHETHER IT'S A REGULAR DAY
+                addDayOfWeekCell(scheduleTable, day.getDate(), day.isHoliday() ? CLASS_HOLIDAY : CLASS_SCH);
+                if (day.isHoliday()) {
+                    addHolidays(scheduleTable, day);
                 } else {
-                    // SET THE DATE TO A REGULAR DAY
-                    dayCell.setAttribute(HTML.Attribute.CLASS.toString(), CLASS_SCH);
-                    
-                    //Where all the lectures are added
-                    if (lectureNum < lectures.size())
-                    {
-                                        
-                        if (sessionNum == 0)
-                        {
-                            lectureNum++;
-                            if (lectureNum < lectures.size())
-                            {
-                                sessionNum = lectures.get(lectureNum).getSessions();
-                            }
-                        }
-                    
-                        if (lectureList.contains(countingDate.getDayOfWeek()))
-                        {
-                            if (sessionNum != 0)
-                            {
-                                addLectureCell(scheduleDoc, dowRowElement, lectureCounter, dayCell);
-        
-                                // ADD THE TEXT TO THE LINK
-                                Text lectureText = scheduleDoc.createTextNode(lectures.get(lectureNum).getTopic());
-                                dayCell.appendChild(lectureText);
-                                sessionNum--;
-                                dayCell.setAttribute(HTML.Attribute.CLASS.toString(), CLASS_SCH);
-                                lectureCounter++;
-                                Element brElement1 = scheduleDoc.createElement(HTML.Tag.BR.toString());
-                                dayCell.appendChild(brElement1);
-                            }
-                   
-                        }
-                                    
+                    // THE LECTURE GIVEN THAT DAY, IF THERE IS ONE
+                    SemesterCalendar.LectureSession lecture = day.getLecture();
+                    if (lecture != null) {
+                        addLectureCell(scheduleTable, lecture.getNumber());
+                        scheduleTable.appendText(lecture.getTopic());
+                        scheduleTable.appendEmptyElement(HTML.Tag.BR.toString());
                     }
-                    
-                    if (assignmentNum < assignments.size())
-                    {
-                        if (assignments.get(assignmentNum).getDate().getDayOfMonth() == countingDate.getDayOfMonth() && assignments.get(assignmentNum).getDate().getMonthValue() == countingDate.getMonthValue())
-                        {
-                            addAssignmentCell(scheduleDoc, dowRowElement, assignmentNum, dayCell, assignments);
-                            Text assignmentDateText = scheduleDoc.createTextNode("due @ 11:59pm");
-                            Text assignmentText = scheduleDoc.createTextNode("(" + assignments.get(assignmentNum).getTopics() + ")");
-                            dayCell.appendChild(assignmentDateText);
-                            Element brElement3 = scheduleDoc.createElement(HTML.Tag.BR.toString());
-                            dayCell.appendChild(brElement3);
-                            dayCell.appendChild(assignmentText);                    
-                            dayCell.setAttribute(HTML.Attribute.CLASS.toString(), CLASS_SCH);
-                            assignmentNum++;
-                        }
-                        
-                       
+
+                    // AND EVERY ASSIGNMENT DUE THAT DAY
+                    for (SemesterCalendar.AssignmentDue assignment : day.getAssignmentsDue()) {
+                        addAssignmentCell(scheduleTable, assignment);
+                        scheduleTable.appendText(DUE_HEADER);
+                        scheduleTable.appendEmptyElement(HTML.Tag.BR.toString());
+                        scheduleTable.appendText("(" + assignment.getTopics() + ")");
                     }
-                    
-                   
                 }
-                
-               // FIRST SCHEDULE ITEMS
-                countingDate = countingDate.plusDays(1);
+                scheduleTable.endElement();
             }
+            scheduleTable.endElement();
+        }
+    }
 
-            // SKIP THE WEEKEND DAYS
-            countingDate = countingDate.plusDays(2);
+    // FILLS IN A HOLIDAY, LINKING TO EACH OF ITS SCHEDULE ITEMS
+    private void addHolidays(PageContent dayCell, SemesterCalendar.Day day) {
+        List<SemesterCalendar.Holiday> holidays = day.getHolidays();
+        for (int i = 0; i < holidays.size(); i++) {
+            if (i > 0) {
+                // PUT EACH ITEM ON ITS OWN LINE
+                dayCell.appendEmptyElement(HTML.Tag.BR.toString());
+            }
 
-            // AND PUT THEM IN THE TABLE
-            Node scheduleTableNode = getNodeWithId(scheduleDoc, HTML.Tag.TABLE.toString(), ID_SCHEDULE);
-            scheduleTableNode.appendChild(dowRowHeaderElement);
-            scheduleTableNode.appendChild(dowRowElement);
+            // ADD A LINK WITH THE ITEM'S TEXT
+            dayCell.startElement(HTML.Tag.A.toString());
+            dayCell.setAttribute(HTML.Attribute.HREF.toString(), holidays.get(i).getLink());
+            dayCell.appendText(holidays.get(i).getDescription());
+            dayCell.endElement();
+        }
 
+        // AND NOW ADD 8 LINE BREAKS
+        for (int brCounter = 0; brCounter < 8; brCounter++) {
+            dayCell.appendEmptyElement(HTML.Tag.BR.toString());
         }
-        
-       
     }
 
-    // ADDS A DAY OF WEEK CELL TO THE SCHEDULE PAGE SCHEDULE TABLE
-    private Element addDayOfWeekCell(Document scheduleDoc, Element tableRow, LocalDate date) {
+    // STARTS A DAY OF WEEK CELL IN THE SCHEDULE PAGE SCHEDULE TABLE, LEAVING
+    // IT OPEN SO THAT WHATEVER HAPPENS THAT DAY CAN BE ADDED TO IT
+    private void addDayOfWeekCell(PageContent tableRow, LocalDate date, String cellClass) {
         // MAKE THE TABLE CELL FOR THIS DATE
-        Element dateCell = scheduleDoc.createElement(HTML.Tag.TD.toString());
-        dateCell.setAttribute(HTML.Attribute.CLASS.toString(), CLASS_SCH);
-        dateCell.setAttribute(HTML.Attribute.ID.toString(), date.getMonthValue() + "_" + date.getDayOfMonth());
-        tableRow.appendChild(dateCell);
+        tableRow.startElement(HTML.Tag.TD.toString());
+        tableRow.setAttribute(HTML.Attribute.CLASS.toString(), cellClass);
+        tableRow.setAttribute(HTML.Attribute.ID.toString(), date.getMonthValue() + "_" + date.getDayOfMonth());
 
         // THE TEXT FOR THE DATE IS BOLD, SO ADD A STRONG ELEMENT
-        Element strong = scheduleDoc.createElement(HTML.Tag.STRONG.toString());
-        dateCell.appendChild(strong);
+        tableRow.appendEmptyElement(HTML.Tag.STRONG.toString());
 
         // AND PUT THE TEXT INSIDE
-        Text dateText = scheduleDoc.createTextNode(date.getMonthValue() + "/" + date.getDayOfMonth());
-        dateCell.appendChild(dateText);
+        tableRow.appendText(date.getMonthValue() + "/" + date.getDayOfMonth());
 
         // THEN A BR TAG
-        Element brElement = scheduleDoc.createElement(HTML.Tag.BR.toString());
-        dateCell.appendChild(brElement);
-
-        // AND RETURN THE NEW ELEMENT
-        return dateCell;
+        tableRow.appendEmptyElement(HTML.Tag.BR.toString());
     }
 
     // ADDS A DAY OF WEEK HEADER TO THE SCHEDULE PAGE SCHEDULE TABLE
-    private void addDayOfWeekHeader(Document scheduleDoc, Element tableRow, String dayOfWeekText) {
-        Element dayOfWeekHeader = scheduleDoc.createElement(HTML.Tag.TH.toString());
-        dayOfWeekHeader.setAttribute(HTML.Attribute.CLASS.toString(), CLASS_SCH);
-        dayOfWeekHeader.setTextContent(dayOfWeekText);
-        tableRow.appendChild(dayOfWeekHeader);
+    private void addDayOfWeekHeader(PageContent tableRow, String dayOfWeekText) {
+        tableRow.startElement(HTML.Tag.TH.toString());
+        tableRow.setAttribute(HTML.Attribute.CLASS.toString(), CLASS_SCH);
+        tableRow.appendText(dayOfWeekText);
+        tableRow.endElement();
     }
 
     // SETS UP THE LINKS IN THE NAVBAR AT THE TOP OF THE PAGE
-    private void appendNavbarLinks(Document doc, Course courseToExport, CoursePage page) {
-        List<CoursePage> pages = courseToExport.getPages();
-        int index = pages.indexOf(page);
-        Node navbarNode = getNodeWithId(doc, HTML.Tag.DIV.toString(), ID_NAVBAR);
-        for (int i = 0; i < pages.size(); i++) {
-            Element linkElement = doc.createElement(HTML.Tag.A.toString());
-            linkElement.setAttribute(HTML.Attribute.ID.toString(), getID(pages.get(i)));
-            linkElement.setAttribute(HTML.Attribute.HREF.toString(), getLink(pages.get(i)));
-            if (index == i) {
-                linkElement.setAttribute(HTML.Attribute.CLASS.toString(), CLASS_OPEN_NAV);
+    private void appendNavbarLinks(PageContent navbar, Course courseToExport, CoursePage page) {
+        // NOTE THAT THE PAGES ALWAYS COME IN THE SAME ORDER
+        for (CoursePage linkPage : courseToExport.getPages()) {
+            navbar.startElement(HTML.Tag.A.toString());
+            navbar.setAttribute(HTML.Attribute.ID.toString(), getID(linkPage));
+            navbar.setAttribute(HTML.Attribute.HREF.toString(), getLink(linkPage));
+            if (linkPage == page) {
+                navbar.setAttribute(HTML.Attribute.CLASS.toString(), CLASS_OPEN_NAV);
             } else {
-                linkElement.setAttribute(HTML.Attribute.CLASS.toString(), CLASS_NAV);
+                navbar.setAttribute(HTML.Attribute.CLASS.toString(), CLASS_NAV);
             }
-            linkElement.setTextContent(getDescription(pages.get(i)));
-            navbarNode.appendChild(linkElement);
+            navbar.appendText(getDescription(linkPage));
+            navbar.endElement();
         }
     }
 
-    // FINDS AND RETURNS A NODE IN A DOCUMENT OF A CERTAIN TYPE WITH A CERTIAN ID
+    // FINDS AND RETURNS A NODE IN A DOCUMENT OF A CERTAIN TYPE WITH A CERTIAN ID,
+    // WHICH THE TEMPLATE'S INDEX TAKES US STRAIGHT TO
     private Node getNodeWithId(Document doc, String tagType, String searchID) {
-        NodeList nodes = doc.getElementsByTagName(tagType);
-        for (int i = 0; i < nodes.getLength(); i++) {
-            Node testNode = nodes.item(i);
-            Node testAttr = testNode.getAttributes().getNamedItem(HTML.Attribute.ID.toString());
-            if (testAttr.getNodeValue().equals(searchID)) {
-                return testNode;
-            }
+        Element element = TemplateIndex.getIndex(doc).getElementById(doc, searchID);
+        if ((element != null) && element.getTagName().equalsIgnoreCase(tagType)) {
+            return element;
         }
         return null;
     }
 
-    // SAVES THE DOCUMENT OBJECT TO A FILE, WHICH WOULD BE AN HTIM FILE
-    private void saveDocument(Document doc, String outputFilePath)
+    // SERIALIZES THE DOCUMENT OBJECT, WHICH WOULD BE AN HTML PAGE, USING
+    // THIS THREAD'S TRANSFORMER, WHICH ALREADY KNOWS HOW TO FORMAT PAGES
+    private void saveDocument(Document doc, OutputStream out)
             throws TransformerException, TransformerConfigurationException {
-        TransformerFactory factory = TransformerFactory.newInstance();
-        Transformer transformer = factory.newTransformer();
-        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-        transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
-        Result result = new StreamResult(new File(outputFilePath));
+        Transformer transformer = XMLToolbox.getPageTransformer();
+        Result result = new StreamResult(out);
         Source source = new DOMSource(doc);
         transformer.transform(source, result);
     }
 
-    // SETS THE COURSE PAGE BANNER
-    private void setBanner(Document doc, Course courseToExport) {
-        // GET THE BANNER NODE
-        Node bannerNode = getNodeWithId(doc, HTML.Tag.DIV.toString(), ID_BANNER);
+    // SERIALIZES A PAGE STRAIGHT FROM ITS SPLIT TEMPLATE, GENERATING EACH
+    // SLOT'S CONTENT AS IT GOES
+    private void streamPage(SplitTemplate template, Map<PageSlot, Consumer<PageContent>> content,
+            OutputStream out) throws TransformerConfigurationException, SAXException {
+        template.write(content, XMLToolbox.newPageHandler(new StreamResult(out)));
+    }
 
+    // SETS THE COURSE PAGE BANNER
+    private void setBanner(PageContent banner, Course courseToExport) {
         // APPEND THE FIRST LINE
         String textNode1Text = courseToExport.getSubject().toString() + " " + courseToExport.getNumber()
                 + DASH + courseToExport.getSemester().toString() + " " + courseToExport.getYear();
-        Text textNode1 = doc.createTextNode(textNode1Text);
-        bannerNode.appendChild(textNode1);
+        banner.appendText(textNode1Text);
 
         // THEN THE LINE BREAK
-        Node brNode = doc.createElement(HTML.Tag.BR.toString());
-        bannerNode.appendChild(brNode);
+        banner.appendEmptyElement(HTML.Tag.BR.toString());
 
         // AND THEN THE SECOND LINE
-        Text textNode2 = doc.createTextNode(courseToExport.getTitle());
-        bannerNode.appendChild(textNode2);
+        banner.appendText(courseToExport.getTitle());
     }
-
     // USED FOR GETTING THE PAGE LINKS FOR PAGE LINKS IN THE NAVBAR
     private String getLink(CoursePage page) {
         if (page == CoursePage.INDEX) {
@@ -622,42 +937,26 @@ public class CourseSiteExporter {
     }
     
     //Method created in order to help in adding lectures
-    private void addLectureCell(Document scheduleDoc, Element tableRow, int x, Element dayCell)
+    private void addLectureCell(PageContent dayCell, int x)
     {
-        // MAKE THE TABLE CELL FOR THIS DATE
-        //Element lectureCell = scheduleDoc.createElement(HTML.Tag.TD.toString());
-        dayCell.setAttribute(HTML.Attribute.CLASS.toString(), CLASS_SCH);
-        //dayCell.setAttribute(HTML.Attribute.ID.toString(), "Lecture " + x);
-        Element lectureCell = scheduleDoc.createElement(HTML.Tag.SPAN.toString());
-        lectureCell.setAttribute(HTML.Attribute.CLASS.toString(), CLASS_LECTURE);
-        lectureCell.setAttribute(HTML.Attribute.ID.toString(), "Lecture " + x);
-        dayCell.appendChild(lectureCell);
-        tableRow.appendChild(dayCell);
-
-        
-        // THE TEXT FOR THE DATE IS BOLD, SO ADD A STRONG ELEMENT
-        Element strong = scheduleDoc.createElement(HTML.Tag.STRONG.toString());
-        dayCell.appendChild(strong);
+        // THE LECTURE NUMBER GOES IN ITS OWN SPAN
+        dayCell.startElement(HTML.Tag.SPAN.toString());
+        dayCell.setAttribute(HTML.Attribute.CLASS.toString(), CLASS_LECTURE);
+        dayCell.setAttribute(HTML.Attribute.ID.toString(), "Lecture " + x);
 
         // AND PUT THE TEXT INSIDE
-        Text lectureNumberText = scheduleDoc.createTextNode("Lecture " + x);
-        lectureCell.appendChild(lectureNumberText);
-        
-        
-        Element brElement = scheduleDoc.createElement(HTML.Tag.BR.toString());
-        dayCell.appendChild(brElement);
+        dayCell.appendText("Lecture " + x);
+        dayCell.endElement();
 
-        // AND RETURN THE NEW ELEMENT
+        // THE TEXT FOR THE DATE IS BOLD, SO ADD A STRONG ELEMENT
+        dayCell.appendEmptyElement(HTML.Tag.STRONG.toString());
 
-         
+        dayCell.appendEmptyElement(HTML.Tag.BR.toString());
     }
     
     //Fills the entire homework table
-    private void fillHomeworkTable(Document hwsDoc, Course courseToExport) 
+    private void fillHomeworkTable(PageContent hwsTable, Course courseToExport) 
     {
-               
-        Node table = getNodeWithClass(hwsDoc, HTML.Tag.TABLE.toString(), CLASS_HWS);
-        
         int r = 240;
         int g = 240;
         int b = 255;
@@ -668,72 +967,15 @@ public class CourseSiteExporter {
         {
             
             String color = "background-color:rgb(" + r + "," + g + "," + b + ")";
-            Element row = hwsDoc.createElement(HTML.Tag.TR.toString());
-            
-            Element hwCell = hwsDoc.createElement(HTML.Tag.TD.toString());
-            
-            Element brElement = hwsDoc.createElement(HTML.Tag.BR.toString());
-            hwCell.appendChild(brElement);
-            
-            hwCell.setAttribute(HTML.Attribute.CLASS.toString(), CLASS_HWS);
-            // AND PUT THE TEXT INSIDE
-            Text hwNumberText = hwsDoc.createTextNode(assignments.get(i).getName() + " - " + assignments.get(i).getTopics());
-            hwCell.appendChild(hwNumberText);
+            hwsTable.startElement(HTML.Tag.TR.toString());
+            hwsTable.setAttribute(HTML.Attribute.STYLE.toString(), color);
             
-            Element brElement1 = hwsDoc.createElement(HTML.Tag.BR.toString());
-            hwCell.appendChild(brElement1);
-            
-            Element brElement7 = hwsDoc.createElement(HTML.Tag.BR.toString());
-            hwCell.appendChild(brElement7);
-       
-            row.appendChild(hwCell);
-            
-            
-            Element dateCell = hwsDoc.createElement(HTML.Tag.TD.toString());
-            
-            Element brElement2 = hwsDoc.createElement(HTML.Tag.BR.toString());
-            dateCell.appendChild(brElement2);
-            
-            
-            dateCell.setAttribute(HTML.Attribute.CLASS.toString(), CLASS_HWS);
             // AND PUT THE TEXT INSIDE
-            Text hwDateText = hwsDoc.createTextNode(assignments.get(i).getDate().getDayOfWeek().toString() + ", " + assignments.get(i).getDate().getMonthValue() + "/" + assignments.get(i).getDate().getDayOfMonth() + "@ 11:59PM");
-            dateCell.appendChild(hwDateText);
-                      
-            Element brElement3 = hwsDoc.createElement(HTML.Tag.BR.toString());
-            dateCell.appendChild(brElement3);
-            
-            Element brElement8 = hwsDoc.createElement(HTML.Tag.BR.toString());
-            dateCell.appendChild(brElement8);
-            
-            
-            row.appendChild(dateCell);
-            
-            Element criteriaCell = hwsDoc.createElement(HTML.Tag.TD.toString());
-            
-            Element brElement4 = hwsDoc.createElement(HTML.Tag.BR.toString());
-            criteriaCell.appendChild(brElement4);
-            
-            criteriaCell.setAttribute(HTML.Attribute.CLASS.toString(), CLASS_HWS);
-            // AND PUT THE TEXT INSIDE
-            Text criteriaText = hwsDoc.createTextNode("TBD");
-            criteriaCell.appendChild(criteriaText);
-                        
-            Element brElement5 = hwsDoc.createElement(HTML.Tag.BR.toString());
-            criteriaCell.appendChild(brElement5);
-            
-            Element brElement9 = hwsDoc.createElement(HTML.Tag.BR.toString());
-            criteriaCell.appendChild(brElement9);
-            
-            
-            row.appendChild(criteriaCell);
-                        
-            row.setAttribute(HTML.Attribute.STYLE.toString(), color);
-            
-            
-            table.appendChild(row);
-            
+            addHomeworkCell(hwsTable, assignments.get(i).getName() + " - " + assignments.get(i).getTopics());
+            addHomeworkCell(hwsTable, assignments.get(i).getDate().getDayOfWeek().toString() + ", " + assignments.get(i).getDate().getMonthValue() + "/" + assignments.get(i).getDate().getDayOfMonth() + "@ 11:59PM");
+            addHomeworkCell(hwsTable, "TBD");
             
+            hwsTable.endElement();
             
             r -= 10;
             g -= 10;
@@ -742,50 +984,45 @@ public class CourseSiteExporter {
         }
         
     }
+
+    // ADDS ONE CELL OF A HOMEWORK TABLE ROW, WITH ITS TEXT BETWEEN LINE BREAKS
+    private void addHomeworkCell(PageContent row, String cellText) {
+        row.startElement(HTML.Tag.TD.toString());
+        row.setAttribute(HTML.Attribute.CLASS.toString(), CLASS_HWS);
+        row.appendEmptyElement(HTML.Tag.BR.toString());
+        row.appendText(cellText);
+        row.appendEmptyElement(HTML.Tag.BR.toString());
+        row.appendEmptyElement(HTML.Tag.BR.toString());
+        row.endElement();
+    }
     
-    //Helps in filling homework table
-    private Node getNodeWithClass(Document doc, String tagType, String searchID) {
-        NodeList nodes = doc.getElementsByTagName(tagType);
-        for (int i = 0; i < nodes.getLength(); i++) {
-            Node testNode = nodes.item(i);
-            Node testAttr = testNode.getAttributes().getNamedItem(HTML.Attribute.CLASS.toString());
-            if (testAttr.getNodeValue().equals(searchID)) {
-                return testNode;
+    // FINDS AND RETURNS THE FIRST NODE IN A DOCUMENT OF A CERTAIN TYPE WITH A
+    // CERTAIN CLASS, WHICH THE TEMPLATE'S INDEX TAKES US STRAIGHT TO
+    private Node getNodeWithClass(Document doc, String tagType, String searchClass) {
+        for (Element element : TemplateIndex.getIndex(doc).getElementsWithClass(doc, searchClass)) {
+            if (element.getTagName().equalsIgnoreCase(tagType)) {
+                return element;
             }
         }
         return null;
     }
     
    
-    private void addAssignmentCell(Document scheduleDoc, Element tableRow, int x, Element dayCell, List<Assignment> assignments)
+    private void addAssignmentCell(PageContent dayCell, SemesterCalendar.AssignmentDue assignment)
     {
-        // MAKE THE TABLE CELL FOR THIS DATE
-        //Element lectureCell = scheduleDoc.createElement(HTML.Tag.TD.toString());
-        dayCell.setAttribute(HTML.Attribute.CLASS.toString(), CLASS_SCH);
-        //dayCell.setAttribute(HTML.Attribute.ID.toString(), assignments.get(x).getName());
-        Element assignmentCell = scheduleDoc.createElement(HTML.Tag.SPAN.toString());
-        assignmentCell.setAttribute(HTML.Attribute.CLASS.toString(), CLASS_HW);
-        assignmentCell.setAttribute(HTML.Attribute.ID.toString(), assignments.get(x).getName());
-        dayCell.appendChild(assignmentCell);
-        
-        tableRow.appendChild(dayCell);
-
-        
-        // THE TEXT FOR THE DATE IS BOLD, SO ADD A STRONG ELEMENT
-        Element strong = scheduleDoc.createElement(HTML.Tag.STRONG.toString());
-        dayCell.appendChild(strong);
+        // THE ASSIGNMENT'S NAME GOES IN ITS OWN SPAN
+        dayCell.startElement(HTML.Tag.SPAN.toString());
+        dayCell.setAttribute(HTML.Attribute.CLASS.toString(), CLASS_HW);
+        dayCell.setAttribute(HTML.Attribute.ID.toString(), assignment.getName());
 
         // AND PUT THE TEXT INSIDE
-        Text assignmentNumberText = scheduleDoc.createTextNode(assignments.get(x).getName());
-        assignmentCell.appendChild(assignmentNumberText);
-        
-        
-        Element brElement = scheduleDoc.createElement(HTML.Tag.BR.toString());
-        dayCell.appendChild(brElement);
+        dayCell.appendText(assignment.getName());
+        dayCell.endElement();
 
-        // AND RETURN THE NEW ELEMENT
+        // THE TEXT FOR THE DATE IS BOLD, SO ADD A STRONG ELEMENT
+        dayCell.appendEmptyElement(HTML.Tag.STRONG.toString());
 
-         
+        dayCell.appendEmptyElement(HTML.Tag.BR.toString());
     }
     
     
@@ -0,0 +1,53 @@
+package csb.file;
+
+import java.util.ArrayDeque;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * This PageContent builds the content it's given as DOM nodes, appending them
+ * to an element of a page's Document.
+ */
+public class DOMPageContent implements PageContent {
+
+    // THE PAGE WE'RE ADDING TO
+    private final Document doc;
+
+    // THE ELEMENTS WE'RE INSIDE OF, THE CURRENT ONE ON TOP
+    private final ArrayDeque<Node> openElements;
+
+    /**
+     * This constructor sets things up to add content to the end of parent.
+     *
+     * @param initDoc The page being filled in.
+     * @param parent The element to add content to.
+     */
+    public DOMPageContent(Document initDoc, Node parent) {
+        doc = initDoc;
+        openElements = new ArrayDeque();
+        openElements.push(parent);
+    }
+
+    @Override
+    public void startElement(String tag) {
+        Element element = doc.createElement(tag);
+        openElements.peek().appendChild(element);
+        openElements.push(element);
+    }
+
+    @Override
+    public void setAttribute(String name, String value) {
+        ((Element) openElements.peek()).setAttribute(name, value);
+    }
+
+    @Override
+    public void appendText(String text) {
+        openElements.peek().appendChild(doc.createTextNode(text));
+    }
+
+    @Override
+    public void endElement() {
+        openElements.pop();
+    }
+}
@@ -0,0 +1,389 @@
+package csb.file;
+
+import csb.data.Course;
+import csb.data.CoursePage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class exports the sites of a whole department's worth of courses at
+ * once. Each course is split up into a task per page, and all of those tasks
+ * are run by a work-stealing pool, so a thread that finishes a small course's
+ * pages picks up pages of a bigger one rather than sitting idle until the
+ * biggest course is done.
+ *
+ * Nothing that goes wrong stops the rest of the export. Every failure, whether
+ * setting up a course's site, exporting one of its pages, or saving what was
+ * exported, is collected into the ExportReport along with how long each course
+ * and each page took and which thread exported each page.
+ */
+public class DepartmentExportScheduler {
+
+    // THIS DOES THE ACTUAL EXPORTING
+    private final CourseSiteExporter exporter;
+
+    // THIS RUNS ALL THE COURSE AND PAGE TASKS
+    private final ForkJoinPool pool;
+
+    /**
+     * This constructor sets up a scheduler with one thread per processor.
+     *
+     * @param initExporter The exporter that will build the sites.
+     */
+    public DepartmentExportScheduler(CourseSiteExporter initExporter) {
+        this(initExporter, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * This constructor sets up a scheduler with the provided number of
+     * threads.
+     *
+     * @param initExporter The exporter that will build the sites.
+     * @param parallelism The number of pages to export at the same time.
+     */
+    public DepartmentExportScheduler(CourseSiteExporter initExporter, int parallelism) {
+        exporter = initExporter;
+        pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    /**
+     * Accessor method for how many pages are exported at the same time.
+     *
+     * @return The number of threads exporting pages.
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Exports the sites of all the courses, waiting for them all to finish.
+     *
+     * @param courses The courses whose sites are to be exported.
+     *
+     * @return What was exported, how long it took, and what went wrong.
+     */
+    public ExportReport exportAll(List<Course> courses) {
+        ExportReport report = new ExportReport(courses.size());
+        ArrayList<CourseTask> courseTasks = new ArrayList();
+        for (Course course : courses) {
+            courseTasks.add(new CourseTask(course, report));
+        }
+        long startTime = System.nanoTime();
+        report.startTime = startTime;
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(courseTasks);
+            }
+        });
+        report.elapsedNanos = System.nanoTime() - startTime;
+        return report;
+    }
+
+    /**
+     * Stops the scheduler's threads once they have nothing left to do. The
+     * scheduler can't be used afterwards.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Sets up a course's site, exports all its pages as tasks of their own,
+     * and then finishes the export.
+     */
+    private class CourseTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Course course;
+        private final ExportReport report;
+
+        CourseTask(Course initCourse, ExportReport initReport) {
+            course = initCourse;
+            report = initReport;
+        }
+
+        @Override
+        protected void compute() {
+            // NOTE THAT THIS INCLUDES THE TIME SPENT WAITING FOR THE PAGES,
+            // SO IT'S HOW LONG UNTIL THE COURSE'S SITE WAS DONE
+            long startTime = System.nanoTime();
+            try {
+                exportCourse();
+            } finally {
+                report.addCourseExportNanos(course, System.nanoTime() - startTime);
+            }
+        }
+
+        private void exportCourse() {
+            CourseSiteExporter.CourseExport export;
+            try {
+                export = exporter.startCourseExport(course);
+            } catch (Exception e) {
+                report.addFailure(new ExportFailure(course, null, e));
+                return;
+            }
+            report.addPagesUpToDate(export.pagesUpToDate);
+
+            // THE PAGES GO WHEREVER THERE'S A THREAD FREE TO EXPORT THEM
+            ArrayList<PageTask> pageTasks = new ArrayList();
+            for (CoursePage page : export.pagesToExport) {
+                pageTasks.add(new PageTask(export, page, report));
+            }
+            invokeAll(pageTasks);
+
+            // NOTE THAT WHAT WAS EXPORTED IS SAVED EVEN IF SOME PAGES FAILED,
+            // BUT NOT UNTIL THEY'VE ALL BEEN WRITTEN AND REPORTED
+            ArrayList<CompletableFuture<Void>> pagesReported = new ArrayList();
+            for (PageTask pageTask : pageTasks) {
+                pagesReported.add(pageTask.reported);
+            }
+            try {
+                PageWritePipeline.await(pagesReported);
+            } catch (Exception e) {
+                // EVERY PAGE'S PROBLEM HAS ALREADY BEEN REPORTED
+            }
+            try {
+                exporter.finishCourseExport(export);
+            } catch (Exception e) {
+                report.addFailure(new ExportFailure(course, null, e));
+            }
+        }
+    }
+
+    /**
+     * Builds a single page of a course and hands it off to be written, timing
+     * each step. The page is reported once it has been written.
+     */
+    private class PageTask extends RecursiveAction implements ExportProgressListener {
+
+        private static final long serialVersionUID = 1L;
+
+        private final CourseSiteExporter.CourseExport export;
+        private final ExportReport report;
+        private final PageMetrics metrics;
+        private long stepStart;
+
+        // COMPLETES ONCE THE PAGE HAS BEEN REPORTED, ONE WAY OR THE OTHER
+        final CompletableFuture<Void> reported;
+
+        PageTask(CourseSiteExporter.CourseExport initExport, CoursePage page, ExportReport initReport) {
+            export = initExport;
+            report = initReport;
+            metrics = new PageMetrics(export.course, page);
+            reported = new CompletableFuture();
+        }
+
+        @Override
+        protected void compute() {
+            metrics.threadName = Thread.currentThread().getName();
+            stepStart = System.nanoTime();
+            metrics.startOffsetNanos = stepStart - report.startTime;
+            try {
+                exporter.exportCoursePage(export, metrics.page, this).whenComplete((ignored, failure) -> {
+                    if (failure == null) {
+                        report.addPageMetrics(metrics);
+                    } else {
+                        Throwable cause = (failure instanceof CompletionException) ? failure.getCause() : failure;
+                        report.addFailure(new ExportFailure(export.course, metrics.page,
+                                (cause instanceof Exception) ? (Exception) cause : new ExecutionException(cause)));
+                    }
+                    reported.complete(null);
+                });
+            } catch (Exception e) {
+                report.addFailure(new ExportFailure(export.course, metrics.page, e));
+                reported.complete(null);
+            }
+        }
+
+        @Override
+        public void pageBuilt(CoursePage page) {
+            long now = System.nanoTime();
+            metrics.buildNanos = now - stepStart;
+            stepStart = now;
+        }
+
+        @Override
+        public void pageWritten(CoursePage page, long bytesWritten) {
+            metrics.writeNanos = System.nanoTime() - stepStart;
+            metrics.bytesWritten = bytesWritten;
+        }
+    }
+
+    /**
+     * How one page's export went.
+     */
+    public static class PageMetrics {
+
+        private final Course course;
+        private final CoursePage page;
+        private String threadName;
+        private long startOffsetNanos;
+        private long buildNanos;
+        private long writeNanos;
+        private long bytesWritten;
+
+        PageMetrics(Course initCourse, CoursePage initPage) {
+            course = initCourse;
+            page = initPage;
+        }
+
+        public Course getCourse() {
+            return course;
+        }
+
+        public CoursePage getPage() {
+            return page;
+        }
+
+        public String getThreadName() {
+            return threadName;
+        }
+
+        public long getStartOffsetNanos() {
+            return startOffsetNanos;
+        }
+
+        public long getBuildNanos() {
+            return buildNanos;
+        }
+
+        public long getWriteNanos() {
+            return writeNanos;
+        }
+
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-10s %-12s started at %7.1f ms, built in %6.1f ms, "
+                    + "written in %6.1f ms, %7d bytes on %s",
+                    "" + course.getSubject() + course.getNumber(), page, startOffsetNanos / 1e6,
+                    buildNanos / 1e6, writeNanos / 1e6, bytesWritten, threadName);
+        }
+    }
+
+    /**
+     * Something that went wrong exporting a course's site. The page is null
+     * when it was the course as a whole that failed, like when its site
+     * couldn't be set up.
+     */
+    public static class ExportFailure {
+
+        private final Course course;
+        private final CoursePage page;
+        private final Exception cause;
+
+        ExportFailure(Course initCourse, CoursePage initPage, Exception initCause) {
+            course = initCourse;
+            page = initPage;
+            cause = initCause;
+        }
+
+        public Course getCourse() {
+            return course;
+        }
+
+        public CoursePage getPage() {
+            return page;
+        }
+
+        public Exception getCause() {
+            return cause;
+        }
+
+        @Override
+        public String toString() {
+            String courseName = "" + course.getSubject() + course.getNumber();
+            return (page == null ? courseName : courseName + " " + page) + " FAILED: " + cause;
+        }
+    }
+
+    /**
+     * What happened during a department export. It's filled in by all the
+     * tasks at once, so everything that's added is synchronized.
+     */
+    public static class ExportReport {
+
+        private final int coursesExported;
+        private final List<PageMetrics> pageMetrics;
+        private final List<ExportFailure> failures;
+        private final Map<Course, Long> courseExportNanos;
+        private int pagesUpToDate;
+        private long startTime;
+        private long elapsedNanos;
+
+        ExportReport(int initCoursesExported) {
+            coursesExported = initCoursesExported;
+            pageMetrics = new ArrayList();
+            failures = new ArrayList();
+            courseExportNanos = new IdentityHashMap();
+        }
+
+        synchronized void addPageMetrics(PageMetrics metrics) {
+            pageMetrics.add(metrics);
+        }
+
+        synchronized void addFailure(ExportFailure failure) {
+            failures.add(failure);
+        }
+
+        synchronized void addPagesUpToDate(int pages) {
+            pagesUpToDate += pages;
+        }
+
+        synchronized void addCourseExportNanos(Course course, long nanos) {
+            courseExportNanos.put(course, nanos);
+        }
+
+        public synchronized List<PageMetrics> getPageMetrics() {
+            return Collections.unmodifiableList(new ArrayList(pageMetrics));
+        }
+
+        public synchronized List<ExportFailure> getFailures() {
+            return Collections.unmodifiableList(new ArrayList(failures));
+        }
+
+        public synchronized long getCourseExportNanos(Course course) {
+            Long nanos = courseExportNanos.get(course);
+            return (nanos == null) ? 0 : nanos;
+        }
+
+        public synchronized int getPagesExported() {
+            return pageMetrics.size();
+        }
+
+        public synchronized int getPagesUpToDate() {
+            return pagesUpToDate;
+        }
+
+        public int getCoursesExported() {
+            return coursesExported;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public synchronized boolean hasFailures() {
+            return !failures.isEmpty();
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("EXPORTED %d PAGES OF %d COURSES IN %.1f ms, %d ALREADY UP TO DATE, %d FAILURES",
+                    pageMetrics.size(), coursesExported, elapsedNanos / 1e6, pagesUpToDate, failures.size());
+        }
+    }
+}
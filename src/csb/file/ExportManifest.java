@@ -0,0 +1,89 @@
+package csb.file;
+
+import csb.data.CoursePage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+/**
+ * This class keeps track of the fingerprints of the pages that were last
+ * exported to a course's site directory. It is stored as a small properties
+ * file inside that directory so that later exports can tell which pages are
+ * already up to date.
+ */
+public class ExportManifest {
+
+    // THIS IS THE FILE IN THE COURSE SITE DIRECTORY WHERE WE KEEP IT
+    public static final String MANIFEST_FILE_NAME = ".export_manifest";
+
+    // WHERE THE MANIFEST IS LOADED FROM AND SAVED TO
+    private final File manifestFile;
+
+    // THE FINGERPRINT OF EACH EXPORTED PAGE, KEYED BY PAGE
+    private final Properties fingerprints;
+
+    /**
+     * Loads the manifest found in the courseExportPath directory. If there is
+     * no manifest there yet, or it can't be read, this manifest starts empty,
+     * meaning every page will be considered out of date.
+     *
+     * @param courseExportPath The directory of the course site.
+     */
+    public ExportManifest(String courseExportPath) {
+        manifestFile = new File(courseExportPath, MANIFEST_FILE_NAME);
+        fingerprints = new Properties();
+        if (manifestFile.exists()) {
+            try (InputStream is = new FileInputStream(manifestFile)) {
+                fingerprints.load(is);
+            } catch (IOException ioe) {
+                // A DAMAGED MANIFEST JUST MEANS WE REBUILD EVERYTHING
+                fingerprints.clear();
+            }
+        }
+    }
+
+    /**
+     * Tests whether the page was last exported with the given fingerprint.
+     *
+     * @param page The page to test.
+     * @param fingerprint The fingerprint of the page as it would be exported now.
+     *
+     * @return true if the page was exported using the same fingerprint.
+     */
+    public synchronized boolean isUpToDate(CoursePage page, String fingerprint) {
+        return fingerprint.equals(fingerprints.getProperty(page.toString()));
+    }
+
+    /**
+     * Records the fingerprint of a page that has just been exported.
+     *
+     * @param page The page that was exported.
+     * @param fingerprint The fingerprint it was exported with.
+     */
+    public synchronized void setFingerprint(CoursePage page, String fingerprint) {
+        fingerprints.setProperty(page.toString(), fingerprint);
+    }
+
+    /**
+     * Forgets the fingerprint of a page, meaning it will be exported again
+     * the next time.
+     *
+     * @param page The page to forget.
+     */
+    public synchronized void removeFingerprint(CoursePage page) {
+        fingerprints.remove(page.toString());
+    }
+
+    /**
+     * Saves this manifest to the course site directory. The file is replaced
+     * atomically, so a crash part way through leaves the old manifest intact.
+     *
+     * @throws IOException Thrown when the manifest file cannot be written.
+     */
+    public synchronized void save() throws IOException {
+        AtomicFileWriter.write(manifestFile.toPath(), (OutputStream os) -> fingerprints.store(os, null));
+    }
+}
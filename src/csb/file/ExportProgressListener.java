@@ -0,0 +1,67 @@
+package csb.file;
+
+import csb.data.Course;
+import csb.data.CoursePage;
+
+/**
+ * This interface lets someone follow along as a CourseSiteExporter exports a
+ * site and ask it to stop part way through. Note that when pages are exported
+ * at the same time these methods are called from multiple threads, none of
+ * which will be the JavaFX thread, so implementations must take care of that.
+ * Every method does nothing by default, so only the interesting ones need to
+ * be provided.
+ */
+public interface ExportProgressListener {
+
+    /**
+     * A listener that ignores all progress and never cancels.
+     */
+    public static final ExportProgressListener NONE = new ExportProgressListener() {
+    };
+
+    /**
+     * Called once it's known which pages of the site need exporting.
+     *
+     * @param course The course whose site is being exported.
+     * @param pagesToExport The number of pages that will be built and written,
+     * not counting those that are already up to date.
+     */
+    public default void exportStarted(Course course, int pagesToExport) {
+    }
+
+    /**
+     * Called when the exporter starts building a page.
+     *
+     * @param page The page being built.
+     */
+    public default void pageStarted(CoursePage page) {
+    }
+
+    /**
+     * Called once the document for a page has been built, but before it has
+     * been written.
+     *
+     * @param page The page that was built.
+     */
+    public default void pageBuilt(CoursePage page) {
+    }
+
+    /**
+     * Called once a page has been written to its file.
+     *
+     * @param page The page that was written.
+     * @param bytesWritten The size of the page's file.
+     */
+    public default void pageWritten(CoursePage page, long bytesWritten) {
+    }
+
+    /**
+     * Tested by the exporter before each step of each page, if this returns
+     * true the export stops, throwing a CancellationException.
+     *
+     * @return true if the export should stop, false otherwise.
+     */
+    public default boolean isCancelled() {
+        return false;
+    }
+}
@@ -9,23 +9,29 @@ import csb.data.Lecture;
 import csb.data.ScheduleItem;
 import csb.data.Semester;
 import csb.data.Subject;
+import java.io.BufferedInputStream;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Paths;
+import java.time.DateTimeException;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
-import javafx.collections.ObservableList;
 import javax.json.Json;
 import javax.json.JsonArray;
 import javax.json.JsonArrayBuilder;
+import javax.json.JsonException;
 import javax.json.JsonObject;
 import javax.json.JsonReader;
 import javax.json.JsonWriter;
 import javax.json.JsonValue;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
 
 /**
  * This is a CourseFileManager that uses the JSON file format to 
@@ -68,7 +74,10 @@ public class JsonCourseFileManager implements CourseFileManager {
 
     /**
      * This method saves all the data associated with a course to
-     * a JSON file.
+     * a JSON file. Note that the course is written straight to the file
+     * as it is visited, so no tree of JSON objects is built for it, and
+     * that the file is replaced atomically, so a crash while saving
+     * leaves the previously saved course intact.
      * 
      * @param courseToSave The course whose data we are saving.
      * 
@@ -77,59 +86,130 @@ public class JsonCourseFileManager implements CourseFileManager {
      */
     @Override
     public void saveCourse(Course courseToSave) throws IOException {
-        // BUILD THE FILE PATH
-        String courseListing = "" + courseToSave.getSubject() + courseToSave.getNumber();
-        String jsonFilePath = PATH_COURSES + SLASH + courseListing + JSON_EXT;
-        
-        // INIT THE WRITER
-        OutputStream os = new FileOutputStream(jsonFilePath);
-        JsonWriter jsonWriter = Json.createWriter(os);  
-        
-        // MAKE A JSON ARRAY FOR THE PAGES ARRAY
-        JsonArray pagesJsonArray = makePagesJsonArray(courseToSave.getPages());
-        
-        // AND AN OBJECT FOR THE INSTRUCTOR
-        JsonObject instructorJsonObject = makeInstructorJsonObject(courseToSave.getInstructor());
-        
-        // ONE FOR EACH OF OUR DATES
-        JsonObject startingMondayJsonObject = makeLocalDateJsonObject(courseToSave.getStartingMonday());
-        JsonObject endingFridayJsonObject = makeLocalDateJsonObject(courseToSave.getEndingFriday());
-        
-        // THE LECTURE DAYS ARRAY
-        JsonArray lectureDaysJsonArray = makeLectureDaysJsonArray(courseToSave.getLectureDays());
-        
-        // THE SCHEDULE ITEMS ARRAY
-        JsonArray scheduleItemsJsonArray = makeScheduleItemsJsonArray(courseToSave.getScheduleItems());
-        
-        // THE LECTURES ARRAY
-        JsonArray lecturesJsonArray = makeLecturesJsonArray(courseToSave.getLectures());
-        
-        // THE HWS ARRAY
-        JsonArray hwsJsonArray = makeHWsJsonArray(courseToSave.getAssignments());
-        
-        // NOW BUILD THE COURSE USING EVERYTHING WE'VE ALREADY MADE
-        JsonObject courseJsonObject = Json.createObjectBuilder()
-                                    .add(JSON_SUBJECT, courseToSave.getSubject().toString())
-                                    .add(JSON_NUMBER, courseToSave.getNumber())
-                                    .add(JSON_TITLE, courseToSave.getTitle())
-                                    .add(JSON_SEMESTER, courseToSave.getSemester().toString())
-                                    .add(JSON_YEAR, courseToSave.getYear())
-                                    .add(JSON_PAGES, pagesJsonArray)
-                                    .add(JSON_INSTRUCTOR, instructorJsonObject)
-                                    .add(JSON_STARTING_MONDAY, startingMondayJsonObject)
-                                    .add(JSON_ENDING_FRIDAY, endingFridayJsonObject)
-                                    .add(JSON_LECTURE_DAYS, lectureDaysJsonArray)
-                                    .add(JSON_SCHEDULE_ITEMS, scheduleItemsJsonArray)
-                                    .add(JSON_LECTURES, lecturesJsonArray)
-                                    .add(JSON_HWS, hwsJsonArray)
-                .build();
-        
-        // AND SAVE EVERYTHING AT ONCE
-        jsonWriter.writeObject(courseJsonObject);
+        saveCourse(courseToSave, getCoursePath(courseToSave));
+    }
+    
+    /**
+     * This method saves all the data associated with a course to the
+     * provided JSON file rather than to the course's own file, replacing it
+     * atomically like saveCourse(Course) does.
+     * 
+     * @param courseToSave The course whose data we are saving.
+     * @param jsonFilePath The file to save it to.
+     * 
+     * @throws IOException Thrown when there are issues writing
+     * to the JSON file.
+     */
+    @Override
+    public void saveCourse(Course courseToSave, String jsonFilePath) throws IOException {
+        AtomicFileWriter.write(Paths.get(jsonFilePath), os -> writeCourse(courseToSave, os));
+    }
+    
+    /**
+     * Builds the path of the file a course is saved to, which is named after
+     * the course's subject and number.
+     * 
+     * @param course The course whose file we want.
+     * 
+     * @return The path of the course's JSON file.
+     */
+    @Override
+    public String getCoursePath(Course course) {
+        String courseListing = "" + course.getSubject() + course.getNumber();
+        return PATH_COURSES + SLASH + courseListing + JSON_EXT;
+    }
+    
+    /**
+     * This method writes all the data associated with a course to
+     * the provided stream as a JSON object.
+     * 
+     * @param courseToSave The course whose data we are writing.
+     * @param os The stream to write to.
+     * 
+     * @throws IOException Thrown when there are issues writing
+     * to the stream.
+     */
+    public void writeCourse(Course courseToSave, OutputStream os) throws IOException {
+        // INIT THE GENERATOR
+        try (JsonGenerator generator = Json.createGenerator(os)) {
+            // THE COURSE IS A SINGLE OBJECT
+            generator.writeStartObject()
+                    .write(JSON_SUBJECT, courseToSave.getSubject().toString())
+                    .write(JSON_NUMBER, courseToSave.getNumber())
+                    .write(JSON_TITLE, courseToSave.getTitle())
+                    .write(JSON_SEMESTER, courseToSave.getSemester().toString())
+                    .write(JSON_YEAR, courseToSave.getYear());
+
+            // THE PAGES ARRAY
+            generator.writeStartArray(JSON_PAGES);
+            for (CoursePage cP : courseToSave.getPages()) {
+                generator.write(cP.toString());
+            }
+            generator.writeEnd();
+
+            // THE INSTRUCTOR
+            Instructor instructor = courseToSave.getInstructor();
+            generator.writeStartObject(JSON_INSTRUCTOR)
+                    .write(JSON_INSTRUCTOR_NAME, instructor.getName())
+                    .write(JSON_HOMEPAGE_URL, instructor.getHomepageURL())
+                    .writeEnd();
+
+            // ONE FOR EACH OF OUR DATES
+            writeLocalDate(generator, JSON_STARTING_MONDAY, courseToSave.getStartingMonday());
+            writeLocalDate(generator, JSON_ENDING_FRIDAY, courseToSave.getEndingFriday());
+
+            // THE LECTURE DAYS ARRAY
+            generator.writeStartArray(JSON_LECTURE_DAYS);
+            for (DayOfWeek dow : courseToSave.getLectureDays()) {
+                generator.write(dow.toString());
+            }
+            generator.writeEnd();
+
+            // THE SCHEDULE ITEMS ARRAY
+            generator.writeStartArray(JSON_SCHEDULE_ITEMS);
+            for (ScheduleItem si : courseToSave.getScheduleItems()) {
+                generator.writeStartObject()
+                        .write(JSON_SCHEDULE_ITEM_DESCRIPTION, si.getDescription());
+                writeLocalDate(generator, JSON_SCHEDULE_ITEM_DATE, si.getDate());
+                generator.write(JSON_SCHEDULE_ITEM_LINK, si.getLink())
+                        .writeEnd();
+            }
+            generator.writeEnd();
+
+            // THE LECTURES ARRAY
+            generator.writeStartArray(JSON_LECTURES);
+            for (Lecture l : courseToSave.getLectures()) {
+                generator.writeStartObject()
+                        .write(JSON_LECTURE_TOPIC, l.getTopic())
+                        .write(JSON_LECTURE_SESSIONS, l.getSessions())
+                        .writeEnd();
+            }
+            generator.writeEnd();
+
+            // THE HWS ARRAY
+            generator.writeStartArray(JSON_HWS);
+            for (Assignment a : courseToSave.getAssignments()) {
+                generator.writeStartObject()
+                        .write(JSON_ASSIGNMENT_NAME, a.getName())
+                        .write(JSON_ASSIGNMENT_TOPICS, a.getTopics());
+                writeLocalDate(generator, JSON_ASSIGNMENT_DATE, a.getDate());
+                generator.writeEnd();
+            }
+            generator.writeEnd();
+
+            // AND FINISH THE COURSE
+            generator.writeEnd();
+        } catch (JsonException je) {
+            throw new IOException(je.getMessage(), je);
+        }
     }
     
     /**
      * Loads the courseToLoad argument using the data found in the json file.
+     * Note that the file is read as a stream of parsing events, so no tree of
+     * JSON objects is ever built for it, but nothing is put in the course until
+     * the whole file has been read, so a file that can't be loaded leaves the
+     * course as it was.
      * 
      * @param courseToLoad Course to load.
      * @param jsonFilePath File containing the data to load.
@@ -138,96 +218,132 @@ public class JsonCourseFileManager implements CourseFileManager {
      */
     @Override
     public void loadCourse(Course courseToLoad, String jsonFilePath) throws IOException {
-        // LOAD THE JSON FILE WITH ALL THE DATA
-        JsonObject json = loadJSONFile(jsonFilePath);
-        
-        // NOW LOAD THE COURSE
-        courseToLoad.setSubject(Subject.valueOf(json.getString(JSON_SUBJECT)));
-        courseToLoad.setNumber(json.getInt(JSON_NUMBER));
-        courseToLoad.setSemester(Semester.valueOf(json.getString(JSON_SEMESTER)));
-        courseToLoad.setYear(json.getInt(JSON_YEAR));
-        courseToLoad.setTitle(json.getString(JSON_TITLE));
-        
-        // GET THE PAGES TO INCLUDE 
-        courseToLoad.clearPages();
-        JsonArray jsonPagesArray = json.getJsonArray(JSON_PAGES);
-        for (int i = 0; i < jsonPagesArray.size(); i++)
-            courseToLoad.addPage(CoursePage.valueOf(jsonPagesArray.getString(i)));
-        
-        // GET THE LECTURE DAYS TO INCLUDE
-        courseToLoad.clearLectureDays();
-        JsonArray jsonLectureDaysArray = json.getJsonArray(JSON_LECTURE_DAYS);
-        for (int i = 0; i < jsonLectureDaysArray.size(); i++)
-            courseToLoad.addLectureDay(DayOfWeek.valueOf(jsonLectureDaysArray.getString(i)));
+        // WHAT WE READ IS KEPT HERE UNTIL WE HAVE ALL OF IT, ANYTHING THAT'S
+        // STILL null WASN'T IN THE FILE, WHICH MEANS WE CAN'T LOAD IT
+        Subject subject = null;
+        Integer number = null;
+        String title = null;
+        Semester semester = null;
+        Integer year = null;
+        EnumSet<CoursePage> pages = null;
+        EnumSet<DayOfWeek> lectureDays = null;
+        Instructor instructor = null;
+        LocalDate startingMonday = null;
+        LocalDate endingFriday = null;
 
-        // LOAD AND SET THE INSTRUCTOR
-        JsonObject jsonInstructor = json.getJsonObject(JSON_INSTRUCTOR);
-        Instructor instructor = new Instructor( jsonInstructor.getString(JSON_INSTRUCTOR_NAME),
-                                                jsonInstructor.getString(JSON_HOMEPAGE_URL));
-        courseToLoad.setInstructor(instructor);
-        
-        // GET THE STARTING MONDAY
-        JsonObject startingMonday = json.getJsonObject(JSON_STARTING_MONDAY);
-        int year = startingMonday.getInt(JSON_YEAR);
-        int month = startingMonday.getInt(JSON_MONTH);
-        int day = startingMonday.getInt(JSON_DAY);
-        courseToLoad.setStartingMonday(LocalDate.of(year, month, day));
+        // THE SCHEDULE STUFF IS SHOWN IN TABLES, SO WE COLLECT IT ALL AND
+        // THEN REPLACE EACH LIST ONCE AT THE END, WHICH MEANS EACH TABLE
+        // ONLY HAS TO RESPOND TO A SINGLE CHANGE
+        ArrayList<ScheduleItem> scheduleItems = null;
+        ArrayList<Lecture> lectures = null;
+        ArrayList<Assignment> assignments = null;
+
+        try (InputStream is = new BufferedInputStream(new FileInputStream(jsonFilePath));
+                JsonParser parser = Json.createParser(is)) {
+            // THE WHOLE COURSE IS A SINGLE OBJECT
+            expectEvent(parser, Event.START_OBJECT);
+            String key;
+            while ((key = nextKey(parser, "the course")) != null) {
+                if (key.equals(JSON_SUBJECT)) {
+                    subject = Subject.valueOf(readString(parser));
+                } else if (key.equals(JSON_NUMBER)) {
+                    number = readInt(parser);
+                } else if (key.equals(JSON_TITLE)) {
+                    title = readString(parser);
+                } else if (key.equals(JSON_SEMESTER)) {
+                    semester = Semester.valueOf(readString(parser));
+                } else if (key.equals(JSON_YEAR)) {
+                    year = readInt(parser);
+                } else if (key.equals(JSON_PAGES)) {
+                    // GET THE PAGES TO INCLUDE
+                    pages = EnumSet.noneOf(CoursePage.class);
+                    expectEvent(parser, Event.START_ARRAY);
+                    while (nextElement(parser, JSON_PAGES, Event.VALUE_STRING)) {
+                        pages.add(CoursePage.valueOf(parser.getString()));
+                    }
+                } else if (key.equals(JSON_LECTURE_DAYS)) {
+                    // GET THE LECTURE DAYS TO INCLUDE
+                    lectureDays = EnumSet.noneOf(DayOfWeek.class);
+                    expectEvent(parser, Event.START_ARRAY);
+                    while (nextElement(parser, JSON_LECTURE_DAYS, Event.VALUE_STRING)) {
+                        lectureDays.add(DayOfWeek.valueOf(parser.getString()));
+                    }
+                } else if (key.equals(JSON_INSTRUCTOR)) {
+                    // LOAD THE INSTRUCTOR
+                    instructor = readInstructor(parser);
+                } else if (key.equals(JSON_STARTING_MONDAY)) {
+                    startingMonday = readLocalDate(parser, JSON_STARTING_MONDAY);
+                } else if (key.equals(JSON_ENDING_FRIDAY)) {
+                    endingFriday = readLocalDate(parser, JSON_ENDING_FRIDAY);
+                } else if (key.equals(JSON_SCHEDULE_ITEMS)) {
+                    // GET THE SCHEDULE ITEMS
+                    scheduleItems = new ArrayList();
+                    expectEvent(parser, Event.START_ARRAY);
+                    while (nextElement(parser, JSON_SCHEDULE_ITEMS, Event.START_OBJECT)) {
+                        scheduleItems.add(readScheduleItem(parser));
+                    }
+                } else if (key.equals(JSON_LECTURES)) {
+                    // GET THE LECTURES
+                    lectures = new ArrayList();
+                    expectEvent(parser, Event.START_ARRAY);
+                    while (nextElement(parser, JSON_LECTURES, Event.START_OBJECT)) {
+                        lectures.add(readLecture(parser));
+                    }
+                } else if (key.equals(JSON_HWS)) {
+                    // GET THE HWS
+                    assignments = new ArrayList();
+                    expectEvent(parser, Event.START_ARRAY);
+                    while (nextElement(parser, JSON_HWS, Event.START_OBJECT)) {
+                        assignments.add(readAssignment(parser));
+                    }
+                } else {
+                    // WE DON'T KNOW THIS ONE, SO LEAVE IT ALONE
+                    skipValue(parser);
+                }
+            }
 
-        // GET THE ENDING FRIDAY
-        JsonObject endingFriday = json.getJsonObject(JSON_ENDING_FRIDAY);
-        year = endingFriday.getInt(JSON_YEAR);
-        month = endingFriday.getInt(JSON_MONTH);
-        day = endingFriday.getInt(JSON_DAY);
-        courseToLoad.setEndingFriday(LocalDate.of(year, month, day));
-        
-        // GET THE SCHEDULE ITEMS
-        courseToLoad.clearScheduleItems();
-        JsonArray jsonScheduleItemsArray = json.getJsonArray(JSON_SCHEDULE_ITEMS);
-        for (int i = 0; i < jsonScheduleItemsArray.size(); i++) {
-            JsonObject jso = jsonScheduleItemsArray.getJsonObject(i);
-            ScheduleItem si = new ScheduleItem();
-            si.setDescription(jso.getString(JSON_SCHEDULE_ITEM_DESCRIPTION));
-            JsonObject jsoDate = jso.getJsonObject(JSON_SCHEDULE_ITEM_DATE);
-            year = jsoDate.getInt(JSON_YEAR);
-            month = jsoDate.getInt(JSON_MONTH);
-            day = jsoDate.getInt(JSON_DAY);            
-            si.setDate(LocalDate.of(year, month, day));
-            si.setLink(jso.getString(JSON_SCHEDULE_ITEM_LINK));
-            
-            // ADD IT TO THE COURSE
-            courseToLoad.addScheduleItem(si);
+        } catch (JsonException | IllegalArgumentException | DateTimeException e) {
+            // BAD JSON, A VALUE WE DON'T KNOW, OR A DATE THAT'S MISSING PART
+            // OF ITSELF OR ISN'T A REAL DAY, EITHER WAY WE CAN'T LOAD IT
+            throw new IOException(jsonFilePath + ": " + e.getMessage(), e);
         }
-        
-        // GET THE LECTURES
-        JsonArray jsonLecturesArray = json.getJsonArray(JSON_LECTURES);
-        courseToLoad.clearLectures();
-        for (int i = 0; i < jsonLecturesArray.size(); i++) {
-            JsonObject jso = jsonLecturesArray.getJsonObject(i);
-            Lecture l = new Lecture();
-            l.setTopic(jso.getString(JSON_LECTURE_TOPIC));
-            l.setSessions(jso.getInt(JSON_LECTURE_SESSIONS));
-            
-            // ADD IT TO THE COURSE
-            courseToLoad.addLecture(l);
+
+        // THE COURSE NEEDS EVERY ONE OF THESE, SO MAKE SURE WE HAVE THEM ALL
+        // BEFORE PUTTING ANY OF THEM IN IT
+        require(subject, JSON_SUBJECT, jsonFilePath);
+        require(number, JSON_NUMBER, jsonFilePath);
+        require(title, JSON_TITLE, jsonFilePath);
+        require(semester, JSON_SEMESTER, jsonFilePath);
+        require(year, JSON_YEAR, jsonFilePath);
+        require(pages, JSON_PAGES, jsonFilePath);
+        require(lectureDays, JSON_LECTURE_DAYS, jsonFilePath);
+        require(instructor, JSON_INSTRUCTOR, jsonFilePath);
+        require(startingMonday, JSON_STARTING_MONDAY, jsonFilePath);
+        require(endingFriday, JSON_ENDING_FRIDAY, jsonFilePath);
+        require(scheduleItems, JSON_SCHEDULE_ITEMS, jsonFilePath);
+        require(lectures, JSON_LECTURES, jsonFilePath);
+        require(assignments, JSON_HWS, jsonFilePath);
+
+        // NOW THAT WE HAVE IT ALL, PUT IT IN THE COURSE
+        courseToLoad.setSubject(subject);
+        courseToLoad.setNumber(number);
+        courseToLoad.setTitle(title);
+        courseToLoad.setSemester(semester);
+        courseToLoad.setYear(year);
+        courseToLoad.clearPages();
+        for (CoursePage page : pages) {
+            courseToLoad.addPage(page);
         }
-        
-        // GET THE HWS
-        JsonArray jsonHWsArray = json.getJsonArray(JSON_HWS);
-        courseToLoad.clearHWs();
-        for (int i = 0; i < jsonHWsArray.size(); i++) {
-            JsonObject jso = jsonHWsArray.getJsonObject(i);
-            Assignment a = new Assignment();
-            a.setName(jso.getString(JSON_ASSIGNMENT_NAME));
-            JsonObject jsoDate = jso.getJsonObject(JSON_ASSIGNMENT_DATE);
-            year = jsoDate.getInt(JSON_YEAR);
-            month = jsoDate.getInt(JSON_MONTH);
-            day = jsoDate.getInt(JSON_DAY);            
-            a.setDate(LocalDate.of(year, month, day));
-            a.setTopics(jso.getString(JSON_ASSIGNMENT_TOPICS));
-            
-            // ADD IT TO THE COURSE
-            courseToLoad.addAssignment(a);
+        courseToLoad.clearLectureDays();
+        for (DayOfWeek lectureDay : lectureDays) {
+            courseToLoad.addLectureDay(lectureDay);
         }
+        courseToLoad.setInstructor(instructor);
+        courseToLoad.setStartingMonday(startingMonday);
+        courseToLoad.setEndingFriday(endingFriday);
+        courseToLoad.setScheduleItems(scheduleItems);
+        courseToLoad.setLectures(lectures);
+        courseToLoad.setAssignments(assignments);
     }
     
     /**
@@ -239,10 +355,8 @@ public class JsonCourseFileManager implements CourseFileManager {
      */
     @Override
     public void saveLastInstructor(Instructor lastInstructor, String jsonFilePath) throws IOException {
-        OutputStream os = new FileOutputStream(jsonFilePath);
-        JsonWriter jsonWriter = Json.createWriter(os); 
         JsonObject instructorJsonObject = makeInstructorJsonObject(lastInstructor);
-        jsonWriter.writeObject(instructorJsonObject);
+        writeJSONFile(instructorJsonObject, jsonFilePath);
     }
     
     /**
@@ -267,9 +381,7 @@ public class JsonCourseFileManager implements CourseFileManager {
     @Override
     public void saveSubjects(List<Object> subjects, String jsonFilePath) throws IOException {
         JsonObject arrayObject = buildJsonArrayObject(subjects);
-        OutputStream os = new FileOutputStream(jsonFilePath);
-        JsonWriter jsonWriter = Json.createWriter(os);  
-        jsonWriter.writeObject(arrayObject);        
+        writeJSONFile(arrayObject, jsonFilePath);
     }
     
     /**
@@ -302,6 +414,17 @@ public class JsonCourseFileManager implements CourseFileManager {
         return json;
     }    
     
+    // ATOMICALLY REPLACES A JSON FILE WITH A SINGLE OBJECT
+    private void writeJSONFile(JsonObject json, String jsonFilePath) throws IOException {
+        AtomicFileWriter.write(Paths.get(jsonFilePath), os -> {
+            try (JsonWriter jsonWriter = Json.createWriter(os)) {
+                jsonWriter.writeObject(json);
+            } catch (JsonException je) {
+                throw new IOException(je.getMessage(), je);
+            }
+        });
+    }
+    
     // LOADS AN ARRAY OF A SPECIFIC NAME FROM A JSON FILE AND
     // RETURNS IT AS AN ArrayList FULL OF THE DATA FOUND
     private ArrayList<String> loadArrayFromJSONFile(String jsonFilePath, String arrayName) throws IOException {
@@ -314,106 +437,225 @@ public class JsonCourseFileManager implements CourseFileManager {
         return items;
     }
     
-    // MAKES AND RETURNS A JSON OBJECT FOR THE PROVIDED SCHEDULE ITEM
-    private JsonObject makeScheduleItemJsonObject(ScheduleItem scheduleItem) {
-        JsonObject date = makeLocalDateJsonObject(scheduleItem.getDate());
-        JsonObject jso = Json.createObjectBuilder().add(JSON_SCHEDULE_ITEM_DESCRIPTION, scheduleItem.getDescription())
-                                                    .add(JSON_SCHEDULE_ITEM_DATE, date)
-                                                    .add(JSON_SCHEDULE_ITEM_LINK, scheduleItem.getLink())
-                                                    .build();
-        return jso;
+    // BELOW ARE THE HELPERS FOR READING A COURSE ONE PARSING EVENT AT A TIME
+    
+    // GETS THE NEXT EVENT, MAKING SURE THE FILE DIDN'T END EARLY
+    private Event nextEvent(JsonParser parser) throws IOException {
+        if (!parser.hasNext()) {
+            throw new IOException("Unexpected end of JSON file");
+        }
+        return parser.next();
     }
     
-    // MAKES AND RETURNS A JSON OBJECT FOR THE PROVIDED LECTURE
-    private JsonObject makeLectureJsonObject(Lecture lecture) {
-        JsonObject jso = Json.createObjectBuilder().add(JSON_LECTURE_TOPIC, lecture.getTopic())
-                                                    .add(JSON_LECTURE_SESSIONS, lecture.getSessions())
-                                                    .build();
-        return jso;
+    // GETS THE NEXT EVENT, MAKING SURE IT'S THE ONE WE EXPECT
+    private void expectEvent(JsonParser parser, Event expectedEvent) throws IOException {
+        Event event = nextEvent(parser);
+        if (event != expectedEvent) {
+            throw new IOException("Expected " + expectedEvent + " but found " + event
+                    + " at " + parser.getLocation());
+        }
     }
     
-    // MAKES AND RETURNS A JSON OBJECT FOR THE PROVIDED ASSIGNMENT
-    private JsonObject makeAssignmentJsonObject(Assignment assignment) {
-        JsonObject dateJSO = makeLocalDateJsonObject(assignment.getDate());
-        JsonObject jso = Json.createObjectBuilder().add(JSON_ASSIGNMENT_NAME, assignment.getName())
-                                                    .add(JSON_ASSIGNMENT_TOPICS, assignment.getTopics())
-                                                    .add(JSON_ASSIGNMENT_DATE, dateJSO)
-                                                    .build();
-        return jso;
+    // GETS THE NEXT KEY OF AN OBJECT, OR null ONCE THE OBJECT ENDS. ANYTHING
+    // ELSE MEANS THE FILE IS BROKEN, SO WE DON'T JUST STOP READING THERE
+    private String nextKey(JsonParser parser, String objectName) throws IOException {
+        Event event = nextEvent(parser);
+        if (event == Event.END_OBJECT) {
+            return null;
+        } else if (event != Event.KEY_NAME) {
+            throw new IOException("Expected a key or the end of " + objectName + " but found " + event
+                    + " at " + parser.getLocation());
+        }
+        return parser.getString();
     }
     
-    // MAKES AND RETURNS A JSON OBJECT FOR THE PROVIDED INSTRUCTOR
-    private JsonObject makeInstructorJsonObject(Instructor instructor) {
-        JsonObject jso = Json.createObjectBuilder().add(JSON_INSTRUCTOR_NAME, instructor.getName())
-                                                   .add(JSON_HOMEPAGE_URL, instructor.getHomepageURL())
-                                                   .build(); 
-        return jso;                
+    // MOVES ON TO THE NEXT ELEMENT OF AN ARRAY, RETURNING false ONCE THE ARRAY
+    // ENDS. AN ELEMENT THAT ISN'T THE KIND WE EXPECT MEANS THE FILE IS BROKEN
+    private boolean nextElement(JsonParser parser, String arrayName, Event elementEvent) throws IOException {
+        Event event = nextEvent(parser);
+        if (event == Event.END_ARRAY) {
+            return false;
+        } else if (event != elementEvent) {
+            throw new IOException("Expected " + elementEvent + " or the end of " + arrayName
+                    + " but found " + event + " at " + parser.getLocation());
+        }
+        return true;
     }
-
-    // MAKES AND RETURNS A JSON OBJECT FOR THE PROVIDED DATE
-    private JsonObject makeLocalDateJsonObject(LocalDate dateToSave) {
-        JsonObject jso = Json.createObjectBuilder().add(JSON_YEAR, dateToSave.getYear())
-                                                   .add(JSON_MONTH, dateToSave.getMonthValue())
-                                                   .add(JSON_DAY, dateToSave.getDayOfMonth())
-                                                   .build(); 
-        return jso;
+    
+    // MAKES SURE A VALUE WAS IN THE FILE, LIKE JsonObject'S GETTERS DO
+    private void require(Object value, String key, String where) throws IOException {
+        if (value == null) {
+            throw new IOException(where + " is missing " + key);
+        }
     }
     
-    // BUILDS AND RETURNS THE INSTRUCTOR FOUND IN THE JSON OBJECT
-    public Instructor buildInstructorJsonObject(JsonObject json) {
-        Instructor instructor = new Instructor( json.getString(JSON_INSTRUCTOR_NAME),
-                                                    json.getString(JSON_HOMEPAGE_URL));
-        return instructor;
+    // READS A STRING VALUE
+    private String readString(JsonParser parser) throws IOException {
+        expectEvent(parser, Event.VALUE_STRING);
+        return parser.getString();
     }
-
-    // BUILDS AND RETURNS A JsonArray CONTAINING ALL THE PAGES FOR THIS COURSE
-    public JsonArray makePagesJsonArray(List<CoursePage> data) {
-        JsonArrayBuilder jsb = Json.createArrayBuilder();
-        for (CoursePage cP : data) {
-           jsb.add(cP.toString());
+    
+    // READS AN INTEGER VALUE
+    private int readInt(JsonParser parser) throws IOException {
+        expectEvent(parser, Event.VALUE_NUMBER);
+        return parser.getInt();
+    }
+    
+    // SKIPS OVER A VALUE, WHICH MAY BE A WHOLE OBJECT OR ARRAY
+    private void skipValue(JsonParser parser) throws IOException {
+        int depth = 0;
+        do {
+            Event event = nextEvent(parser);
+            if ((event == Event.START_OBJECT) || (event == Event.START_ARRAY)) {
+                depth++;
+            } else if ((event == Event.END_OBJECT) || (event == Event.END_ARRAY)) {
+                depth--;
+            }
+        } while (depth > 0);
+    }
+    
+    // READS A DATE OBJECT
+    private LocalDate readLocalDate(JsonParser parser, String dateName) throws IOException {
+        Integer year = null;
+        Integer month = null;
+        Integer day = null;
+        expectEvent(parser, Event.START_OBJECT);
+        String key;
+        while ((key = nextKey(parser, dateName)) != null) {
+            if (key.equals(JSON_YEAR)) {
+                year = readInt(parser);
+            } else if (key.equals(JSON_MONTH)) {
+                month = readInt(parser);
+            } else if (key.equals(JSON_DAY)) {
+                day = readInt(parser);
+            } else {
+                skipValue(parser);
+            }
         }
-        JsonArray jA = jsb.build();
-        return jA;        
+        require(year, JSON_YEAR, dateName);
+        require(month, JSON_MONTH, dateName);
+        require(day, JSON_DAY, dateName);
+        return LocalDate.of(year, month, day);
     }
-
-    // BUILDS AND RETURNS A JsonArray CONTAINING ALL THE LECTURE DAYS FOR THIS COURSE
-    public JsonArray makeLectureDaysJsonArray(List<DayOfWeek> data) {
-        JsonArrayBuilder jsb = Json.createArrayBuilder();
-        for (DayOfWeek dow : data) {
-            jsb.add(dow.toString());
+    
+    // READS AN INSTRUCTOR OBJECT
+    private Instructor readInstructor(JsonParser parser) throws IOException {
+        String name = null;
+        String homepageURL = null;
+        expectEvent(parser, Event.START_OBJECT);
+        String key;
+        while ((key = nextKey(parser, JSON_INSTRUCTOR)) != null) {
+            if (key.equals(JSON_INSTRUCTOR_NAME)) {
+                name = readString(parser);
+            } else if (key.equals(JSON_HOMEPAGE_URL)) {
+                homepageURL = readString(parser);
+            } else {
+                skipValue(parser);
+            }
         }
-        JsonArray jA = jsb.build();
-        return jA;
+        require(name, JSON_INSTRUCTOR_NAME, JSON_INSTRUCTOR);
+        require(homepageURL, JSON_HOMEPAGE_URL, JSON_INSTRUCTOR);
+        return new Instructor(name, homepageURL);
     }
     
-    // MAKE AN ARRAY OF SCHEDULE ITEMS
-    private JsonArray makeScheduleItemsJsonArray(ObservableList<ScheduleItem> data) {
-        JsonArrayBuilder jsb = Json.createArrayBuilder();
-        for (ScheduleItem si : data) {
-            jsb.add(makeScheduleItemJsonObject(si));
+    // READS THE REST OF A SCHEDULE ITEM OBJECT, ITS START HAS ALREADY BEEN READ
+    private ScheduleItem readScheduleItem(JsonParser parser) throws IOException {
+        String description = null;
+        LocalDate date = null;
+        String link = null;
+        String key;
+        while ((key = nextKey(parser, JSON_SCHEDULE_ITEMS)) != null) {
+            if (key.equals(JSON_SCHEDULE_ITEM_DESCRIPTION)) {
+                description = readString(parser);
+            } else if (key.equals(JSON_SCHEDULE_ITEM_DATE)) {
+                date = readLocalDate(parser, JSON_SCHEDULE_ITEM_DATE);
+            } else if (key.equals(JSON_SCHEDULE_ITEM_LINK)) {
+                link = readString(parser);
+            } else {
+                skipValue(parser);
+            }
         }
-        JsonArray jA = jsb.build();
-        return jA;
+        require(description, JSON_SCHEDULE_ITEM_DESCRIPTION, JSON_SCHEDULE_ITEMS);
+        require(date, JSON_SCHEDULE_ITEM_DATE, JSON_SCHEDULE_ITEMS);
+        require(link, JSON_SCHEDULE_ITEM_LINK, JSON_SCHEDULE_ITEMS);
+        ScheduleItem si = new ScheduleItem();
+        si.setDescription(description);
+        si.setDate(date);
+        si.setLink(link);
+        return si;
     }
     
-    // MAKE AN ARRAY OF LECTURE ITEMS
-    private JsonArray makeLecturesJsonArray(ObservableList<Lecture> data) {
-        JsonArrayBuilder jsb = Json.createArrayBuilder();
-        for (Lecture l : data) {
-            jsb.add(makeLectureJsonObject(l));
+    // READS THE REST OF A LECTURE OBJECT, ITS START HAS ALREADY BEEN READ
+    private Lecture readLecture(JsonParser parser) throws IOException {
+        String topic = null;
+        Integer sessions = null;
+        String key;
+        while ((key = nextKey(parser, JSON_LECTURES)) != null) {
+            if (key.equals(JSON_LECTURE_TOPIC)) {
+                topic = readString(parser);
+            } else if (key.equals(JSON_LECTURE_SESSIONS)) {
+                sessions = readInt(parser);
+            } else {
+                skipValue(parser);
+            }
         }
-        JsonArray jA = jsb.build();
-        return jA;
+        require(topic, JSON_LECTURE_TOPIC, JSON_LECTURES);
+        require(sessions, JSON_LECTURE_SESSIONS, JSON_LECTURES);
+        Lecture l = new Lecture();
+        l.setTopic(topic);
+        l.setSessions(sessions);
+        return l;
     }
     
-    // MAKE AN ARRAY OF ASSIGNMENTS
-    public JsonArray makeHWsJsonArray(ObservableList<Assignment> data) {
-        JsonArrayBuilder jsb = Json.createArrayBuilder();
-        for (Assignment a : data) {
-            jsb.add(this.makeAssignmentJsonObject(a));
+    // READS THE REST OF AN ASSIGNMENT OBJECT, ITS START HAS ALREADY BEEN READ
+    private Assignment readAssignment(JsonParser parser) throws IOException {
+        String name = null;
+        LocalDate date = null;
+        String topics = null;
+        String key;
+        while ((key = nextKey(parser, JSON_HWS)) != null) {
+            if (key.equals(JSON_ASSIGNMENT_NAME)) {
+                name = readString(parser);
+            } else if (key.equals(JSON_ASSIGNMENT_DATE)) {
+                date = readLocalDate(parser, JSON_ASSIGNMENT_DATE);
+            } else if (key.equals(JSON_ASSIGNMENT_TOPICS)) {
+                topics = readString(parser);
+            } else {
+                skipValue(parser);
+            }
         }
-        JsonArray jA = jsb.build();
-        return jA;
+        require(name, JSON_ASSIGNMENT_NAME, JSON_HWS);
+        require(date, JSON_ASSIGNMENT_DATE, JSON_HWS);
+        require(topics, JSON_ASSIGNMENT_TOPICS, JSON_HWS);
+        Assignment a = new Assignment();
+        a.setName(name);
+        a.setDate(date);
+        a.setTopics(topics);
+        return a;
+    }
+    
+    // MAKES AND RETURNS A JSON OBJECT FOR THE PROVIDED INSTRUCTOR
+    private JsonObject makeInstructorJsonObject(Instructor instructor) {
+        JsonObject jso = Json.createObjectBuilder().add(JSON_INSTRUCTOR_NAME, instructor.getName())
+                                                   .add(JSON_HOMEPAGE_URL, instructor.getHomepageURL())
+                                                   .build(); 
+        return jso;                
+    }
+
+    // WRITES THE PROVIDED DATE AS AN OBJECT NAMED name
+    private void writeLocalDate(JsonGenerator generator, String name, LocalDate dateToSave) {
+        generator.writeStartObject(name)
+                .write(JSON_YEAR, dateToSave.getYear())
+                .write(JSON_MONTH, dateToSave.getMonthValue())
+                .write(JSON_DAY, dateToSave.getDayOfMonth())
+                .writeEnd();
+    }
+    
+    // BUILDS AND RETURNS THE INSTRUCTOR FOUND IN THE JSON OBJECT
+    public Instructor buildInstructorJsonObject(JsonObject json) {
+        Instructor instructor = new Instructor( json.getString(JSON_INSTRUCTOR_NAME),
+                                                    json.getString(JSON_HOMEPAGE_URL));
+        return instructor;
     }
 
     // BUILDS AND RETURNS A JsonArray CONTAINING THE PROVIDED DATA
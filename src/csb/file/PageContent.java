@@ -0,0 +1,50 @@
+package csb.file;
+
+/**
+ * This interface is what the content the exporter generates for a page gets
+ * written to, one element at a time. Since it doesn't say where that content
+ * goes, the same code can fill in a page's DOM or stream the page straight to
+ * its file.
+ *
+ * Note that an element's attributes must all be set before anything is put
+ * inside it.
+ */
+public interface PageContent {
+
+    /**
+     * Starts a new element inside the current one, which it then becomes.
+     *
+     * @param tag The element's tag name.
+     */
+    public void startElement(String tag);
+
+    /**
+     * Sets an attribute of the element that was just started.
+     *
+     * @param name The attribute's name.
+     * @param value The attribute's value.
+     */
+    public void setAttribute(String name, String value);
+
+    /**
+     * Adds text inside the current element.
+     *
+     * @param text The text to add, which will be escaped as needed.
+     */
+    public void appendText(String text);
+
+    /**
+     * Ends the current element, going back to the one it's inside of.
+     */
+    public void endElement();
+
+    /**
+     * Adds an element that has nothing inside it, like a BR.
+     *
+     * @param tag The element's tag name.
+     */
+    public default void appendEmptyElement(String tag) {
+        startElement(tag);
+        endElement();
+    }
+}
@@ -0,0 +1,142 @@
+package csb.file;
+
+import csb.data.Assignment;
+import csb.data.Course;
+import csb.data.CoursePage;
+import csb.data.Instructor;
+import csb.data.Lecture;
+import csb.data.ScheduleItem;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * This class computes a hash of everything a particular page of a course site
+ * is built from. If the fingerprint of a page hasn't changed since it was last
+ * exported then exporting it again would produce the same file, so it can be
+ * skipped.
+ */
+public class PageFingerprint {
+
+    // CHANGE THIS WHENEVER THE EXPORTER STARTS PRODUCING DIFFERENT
+    // PAGES FROM THE SAME DATA SO THAT OLD PAGES ARE REBUILT
+    public static final int EXPORT_FORMAT_VERSION = 3;
+
+    // USED FOR SEPARATING VALUES SO THAT "AB"+"C" AND "A"+"BC" DIFFER
+    private static final byte SEPARATOR = 0;
+
+    // THIS ACCUMULATES THE HASH
+    private final MessageDigest digest;
+
+    // HEXADECIMAL DIGITS FOR PRINTING THE HASH
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Computes the fingerprint of a single page of a course's site.
+     *
+     * @param page The page whose inputs we are to hash.
+     * @param course The course the page is being built for.
+     * @param templateHash A hash of the base page the page is built from.
+     *
+     * @return The fingerprint of the page, as a hexadecimal string.
+     */
+    public static String fingerprintPage(CoursePage page, Course course, byte[] templateHash) {
+        PageFingerprint fingerprint = new PageFingerprint();
+        fingerprint.add(EXPORT_FORMAT_VERSION);
+        fingerprint.add(page.toString());
+        fingerprint.add(templateHash);
+
+        // EVERY PAGE HAS THE TITLE, NAVBAR, BANNER, AND INSTRUCTOR
+        fingerprint.add(course.getSubject());
+        fingerprint.add(course.getNumber());
+        fingerprint.add(course.getSemester());
+        fingerprint.add(course.getYear());
+        fingerprint.add(course.getTitle());
+        Instructor instructor = course.getInstructor();
+        fingerprint.add(instructor.getName());
+        fingerprint.add(instructor.getHomepageURL());
+        for (CoursePage coursePage : course.getPages()) {
+            fingerprint.add(coursePage);
+        }
+        fingerprint.add(SEPARATOR);
+
+        // AND THEN THERE'S THE DATA PARTICULAR TO SOME PAGES
+        if (page == CoursePage.SCHEDULE) {
+            fingerprint.add(course.getStartingMonday());
+            fingerprint.add(course.getEndingFriday());
+            for (DayOfWeek lectureDay : course.getLectureDays()) {
+                fingerprint.add(lectureDay);
+            }
+            fingerprint.add(SEPARATOR);
+            for (Lecture lecture : course.getLectures()) {
+                fingerprint.add(lecture.getTopic());
+                fingerprint.add(lecture.getSessions());
+            }
+            fingerprint.add(SEPARATOR);
+            for (ScheduleItem scheduleItem : course.getScheduleItems()) {
+                fingerprint.add(scheduleItem.getDescription());
+                fingerprint.add(scheduleItem.getDate());
+                fingerprint.add(scheduleItem.getLink());
+            }
+            fingerprint.add(SEPARATOR);
+            addAssignments(fingerprint, course);
+        } else if (page == CoursePage.HWS) {
+            addAssignments(fingerprint, course);
+        }
+        return fingerprint.toString();
+    }
+
+    // ADDS ALL THE ASSIGNMENTS OF THE COURSE TO THE FINGERPRINT
+    private static void addAssignments(PageFingerprint fingerprint, Course course) {
+        for (Assignment assignment : course.getAssignments()) {
+            fingerprint.add(assignment.getName());
+            fingerprint.add(assignment.getTopics());
+            fingerprint.add(assignment.getDate());
+        }
+        fingerprint.add(SEPARATOR);
+    }
+
+    private PageFingerprint() {
+        try {
+            digest = MessageDigest.getInstance(SiteTemplateCache.HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException nsae) {
+            // EVERY JAVA PLATFORM IS REQUIRED TO PROVIDE IT
+            throw new IllegalStateException(nsae);
+        }
+    }
+
+    private void add(Object value) {
+        digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        digest.update(SEPARATOR);
+    }
+
+    private void add(int value) {
+        add(Integer.toString(value));
+    }
+
+    private void add(byte value) {
+        digest.update(value);
+    }
+
+    private void add(byte[] value) {
+        digest.update(value);
+        digest.update(SEPARATOR);
+    }
+
+    private void add(LocalDate date) {
+        add(date == null ? null : date.toString());
+    }
+
+    @Override
+    public String toString() {
+        byte[] hash = digest.digest();
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0xF];
+            hex[(i * 2) + 1] = HEX_DIGITS[hash[i] & 0xF];
+        }
+        return new String(hex);
+    }
+}
@@ -0,0 +1,92 @@
+package csb.file;
+
+import org.w3c.dom.Element;
+
+/**
+ * The places in the base pages that the exporter fills in with a course's
+ * content. Each slot is the first element of its tag with its id or class. The
+ * content of most slots goes after whatever the base page already has inside
+ * them, but the title's replaces it.
+ */
+public enum PageSlot {
+    TITLE("title", null, null, true),
+    NAVBAR("div", "navbar", null, false),
+    BANNER("div", "banner", null, false),
+    INSTRUCTOR_LINK("span", "instructor_link", null, false),
+    INLINED_COURSE("span", "inlined_course", null, false),
+    SCHEDULE("table", "schedule", null, false),
+    HWS("table", null, "hws", false);
+
+    // WHAT THE SLOT'S ELEMENT LOOKS LIKE
+    private final String tag;
+    private final String id;
+    private final String className;
+
+    // WHETHER THE CONTENT REPLACES WHAT'S IN THE ELEMENT
+    private final boolean replacingContent;
+
+    private PageSlot(String initTag, String initId, String initClassName, boolean initReplacingContent) {
+        tag = initTag;
+        id = initId;
+        className = initClassName;
+        replacingContent = initReplacingContent;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * Accessor method for the id of the slot's element.
+     *
+     * @return The id, or null if the slot is found some other way.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Accessor method for the class of the slot's element.
+     *
+     * @return The class, or null if the slot is found some other way.
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Accessor method for testing whether the slot's content replaces what the
+     * base page has in the slot's element.
+     *
+     * @return true if it replaces it, false if it goes after it.
+     */
+    public boolean isReplacingContent() {
+        return replacingContent;
+    }
+
+    /**
+     * Tests whether an element of a base page looks like this slot's element.
+     * Note that only the first such element in a page is the slot.
+     *
+     * @param element The element to test.
+     *
+     * @return true if it looks like this slot's element, false otherwise.
+     */
+    public boolean matches(Element element) {
+        if (!element.getTagName().equalsIgnoreCase(tag)) {
+            return false;
+        }
+        if (id != null) {
+            return id.equals(element.getAttribute(TemplateIndex.ID_ATTRIBUTE));
+        }
+        if (className != null) {
+            for (String elementClass : element.getAttribute(TemplateIndex.CLASS_ATTRIBUTE).trim().split("\\s+")) {
+                if (className.equals(elementClass)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+}
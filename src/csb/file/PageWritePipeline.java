@@ -0,0 +1,174 @@
+package csb.file;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * This class is the last stage of exporting pages. Pages are built and
+ * serialized to bytes by whatever threads are exporting them, which is all CPU
+ * work, and then handed to this pipeline, whose own threads write them to
+ * their files. That way a slow disk, like a network mounted sites directory,
+ * holds up the writers rather than the page builders.
+ *
+ * The pipeline only holds on to so many bytes of pages that haven't been
+ * written yet. Once it's full, a builder handing it another page waits until
+ * enough pages have been written to make room, so no matter how many pages are
+ * exported, the pages waiting to be written never take more than that.
+ */
+public class PageWritePipeline {
+
+    // THE DEFAULTS ARE A COUPLE OF WRITERS AND A FEW MEGABYTES OF PAGES
+    public static final int DEFAULT_WRITER_THREADS = 2;
+    public static final int DEFAULT_MAX_BUFFERED_BYTES = 8 * 1024 * 1024;
+
+    // THESE WRITE THE PAGES
+    private final ExecutorService writers;
+
+    // ONE PERMIT FOR EVERY BYTE WE CAN HOLD ON TO
+    private final Semaphore bufferedBytes;
+    private final int maxBufferedBytes;
+
+    /**
+     * This constructor sets up a pipeline with its own writer threads.
+     *
+     * @param writerThreads The number of pages to write at the same time.
+     * @param initMaxBufferedBytes The most bytes of pages to hold on to while
+     * they wait to be written.
+     */
+    public PageWritePipeline(int writerThreads, int initMaxBufferedBytes) {
+        maxBufferedBytes = Math.max(1, initMaxBufferedBytes);
+        bufferedBytes = new Semaphore(maxBufferedBytes);
+        writers = Executors.newFixedThreadPool(Math.max(1, writerThreads), (Runnable r) -> {
+            Thread writerThread = new Thread(r, "Page Writer");
+            writerThread.setDaemon(true);
+            return writerThread;
+        });
+    }
+
+    /**
+     * Hands a page to the writers, waiting first for there to be room for it
+     * if the pipeline is full.
+     *
+     * @param outputFilePath The file to write the page to.
+     * @param page The page, which must not be changed afterwards.
+     * @param onWritten Run by the writer once the page has been written.
+     *
+     * @return Completes once the page has been written, or with the problem
+     * that kept it from being written.
+     *
+     * @throws InterruptedIOException Thrown when we are interrupted while
+     * waiting for room in the pipeline.
+     */
+    public CompletableFuture<Void> write(String outputFilePath, byte[] page, Runnable onWritten)
+            throws InterruptedIOException {
+        // A PAGE BIGGER THAN THE WHOLE PIPELINE JUST WAITS FOR IT TO EMPTY
+        int permits = Math.max(1, Math.min(page.length, maxBufferedBytes));
+        try {
+            bufferedBytes.acquire(permits);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting to write " + outputFilePath);
+        }
+        CompletableFuture<Void> written = new CompletableFuture();
+        try {
+            writers.execute(() -> {
+                try {
+                    writeFile(outputFilePath, page);
+                    onWritten.run();
+                    written.complete(null);
+                } catch (IOException | RuntimeException e) {
+                    written.completeExceptionally(e);
+                } finally {
+                    bufferedBytes.release(permits);
+                }
+            });
+        } catch (RuntimeException re) {
+            // LIKE WHEN THE PIPELINE HAS BEEN SHUT DOWN
+            bufferedBytes.release(permits);
+            throw re;
+        }
+        return written;
+    }
+
+    /**
+     * Writes a page to its file on the calling thread.
+     *
+     * @param outputFilePath The file to write the page to.
+     * @param page The page.
+     *
+     * @throws IOException Thrown when the page cannot be written.
+     */
+    public static void writeFile(String outputFilePath, byte[] page) throws IOException {
+        try (OutputStream out = new FileOutputStream(outputFilePath)) {
+            out.write(page);
+        }
+    }
+
+    /**
+     * Stops the writer threads once every page handed to them is written. No
+     * more pages may be written afterwards.
+     */
+    public void shutdown() {
+        writers.shutdown();
+    }
+
+    // WAITS FOR ALL THE WRITES TO FINISH, THROWING THE FIRST PROBLEM ANY OF
+    // THEM HAD. NOTE THAT WHEN CALLED FROM A FORK/JOIN POOL THE POOL IS TOLD
+    // WE'RE BLOCKED, SO IT CAN KEEP ANOTHER THREAD BUSY IN THE MEANTIME
+    static void await(List<? extends Future<?>> writes) throws IOException {
+        try {
+            ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                @Override
+                public boolean block() throws InterruptedException {
+                    for (Future<?> write : writes) {
+                        try {
+                            write.get();
+                        } catch (ExecutionException ee) {
+                            // REPORTED BELOW
+                        }
+                    }
+                    return true;
+                }
+
+                @Override
+                public boolean isReleasable() {
+                    for (Future<?> write : writes) {
+                        if (!write.isDone()) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            });
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for pages to be written");
+        }
+        for (Future<?> write : writes) {
+            try {
+                write.get();
+            } catch (ExecutionException ee) {
+                Throwable cause = ee.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException(cause);
+            } catch (InterruptedException ie) {
+                // CAN'T HAPPEN, EVERY WRITE IS ALREADY DONE
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package csb.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.TransformerConfigurationException;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * This class keeps parsed copies of the base site pages so that each one only
+ * has to be loaded from disk once. Every export gets its own deep copy of the
+ * pristine template to fill in, which is much cheaper than parsing the file
+ * again. A template is reloaded when its base file changes, which we detect
+ * using the file's modification time and a hash of its contents. Each template
+ * is also indexed when it's loaded, and every copy carries that TemplateIndex
+ * so that its elements can be found by id or class without searching. For
+ * writing pages without copying the template at all, each template can also be
+ * provided as a SplitTemplate, which is only made the first time it's asked for.
+ *
+ * Templates can also be provided as CompiledTemplates. These may be saved to a
+ * directory for compiled templates, in which case a template whose file hasn't
+ * changed since it was saved is just loaded from there, without even being
+ * parsed, the next time the program runs. Note that templates are only ever
+ * parsed when they're actually needed, so a template that's only ever provided
+ * compiled, or only ever hashed, is never parsed at all.
+ */
+public class SiteTemplateCache {
+
+    // WE'LL USE THIS TO HASH THE CONTENTS OF THE TEMPLATE FILES
+    public static final String HASH_ALGORITHM = "SHA-1";
+
+    // COMPILED TEMPLATES ARE SAVED IN FILES NAMED AFTER THEIR TEMPLATE FILES
+    public static final String COMPILED_TEMPLATE_EXT = ".compiled";
+
+    // ALL THE TEMPLATES WE'VE LOADED SO FAR, KEYED BY THEIR FILE PATHS
+    private final HashMap<String, CachedTemplate> templates;
+
+    // WHERE COMPILED TEMPLATES ARE SAVED, IF ANYWHERE
+    private final File compiledTemplateDir;
+
+    /**
+     * This constructor initializes an empty cache, templates will be loaded
+     * the first time they are requested. Compiled templates are not saved.
+     */
+    public SiteTemplateCache() {
+        this(null);
+    }
+
+    /**
+     * This constructor initializes an empty cache that saves the templates
+     * it compiles to initCompiledTemplateDir, and loads them from there when
+     * it can. Note that templates are saved by the name of their file, so
+     * templates with the same file name in different directories shouldn't
+     * share a cache directory.
+     *
+     * @param initCompiledTemplateDir Directory for compiled templates, which
+     * will be made if it doesn't exist, or null to not save them.
+     */
+    public SiteTemplateCache(String initCompiledTemplateDir) {
+        templates = new HashMap();
+        compiledTemplateDir = (initCompiledTemplateDir == null) ? null : new File(initCompiledTemplateDir);
+    }
+
+    /**
+     * Provides a fresh copy of the template found at templatePath. The copy
+     * belongs to the caller and may be changed freely without affecting the
+     * cached template.
+     *
+     * @param templatePath Path to the base page to load.
+     *
+     * @return A deep copy of the parsed template.
+     *
+     * @throws IOException Thrown when the template file cannot be read.
+     * @throws SAXException Thrown when the template file cannot be parsed.
+     * @throws ParserConfigurationException Thrown when no parser is available.
+     */
+    public Document getTemplate(String templatePath)
+            throws IOException, SAXException, ParserConfigurationException {
+        return getCachedTemplate(templatePath).copy();
+    }
+
+    /**
+     * Provides the template found at templatePath split up into its fixed
+     * markup and the slots a course's content goes in. Unlike a copy, this is
+     * shared by everyone who asks for it, which is fine since it can't be
+     * changed.
+     *
+     * @param templatePath Path to the base page to load.
+     *
+     * @return The split template.
+     *
+     * @throws IOException Thrown when the template file cannot be read.
+     * @throws SAXException Thrown when the template file cannot be parsed.
+     * @throws ParserConfigurationException Thrown when no parser is available.
+     */
+    public SplitTemplate getSplitTemplate(String templatePath)
+            throws IOException, SAXException, ParserConfigurationException {
+        return getCachedTemplate(templatePath).split();
+    }
+
+    /**
+     * Provides the template found at templatePath compiled into chunks that
+     * pages can be written with as they are. Like a split template, this is
+     * shared by everyone who asks for it.
+     *
+     * @param templatePath Path to the base page to load.
+     *
+     * @return The compiled template, or null if this template can't be
+     * compiled, in which case its pages have to be written some other way.
+     *
+     * @throws IOException Thrown when the template file cannot be read.
+     * @throws SAXException Thrown when the template file cannot be parsed.
+     * @throws ParserConfigurationException Thrown when no parser is available.
+     * @throws TransformerConfigurationException Thrown when no serializer is
+     * available.
+     */
+    public CompiledTemplate getCompiledTemplate(String templatePath)
+            throws IOException, SAXException, ParserConfigurationException,
+            TransformerConfigurationException {
+        CachedTemplate template = getCachedTemplate(templatePath);
+        File compiledFile = (compiledTemplateDir == null) ? null
+                : new File(compiledTemplateDir, template.templateFile.getName() + COMPILED_TEMPLATE_EXT);
+        return template.compile(compiledFile);
+    }
+
+    /**
+     * Provides a hash of the current contents of the template found at
+     * templatePath, loading the template first if necessary.
+     *
+     * @param templatePath Path to the base page to hash.
+     *
+     * @return The hash of the template file's contents.
+     *
+     * @throws IOException Thrown when the template file cannot be read.
+     * @throws SAXException Thrown when the template file cannot be parsed.
+     * @throws ParserConfigurationException Thrown when no parser is available.
+     */
+    public byte[] getTemplateHash(String templatePath)
+            throws IOException, SAXException, ParserConfigurationException {
+        return getCachedTemplate(templatePath).getHash();
+    }
+
+    /**
+     * Throws away all the templates loaded so far, forcing them to be loaded
+     * again the next time they are requested.
+     */
+    public void clear() {
+        synchronized (templates) {
+            templates.clear();
+        }
+    }
+
+    // GETS THE CACHE ENTRY FOR A TEMPLATE, MAKING IT IF NECESSARY
+    private CachedTemplate getCachedTemplate(String templatePath) {
+        File templateFile = new File(templatePath).getAbsoluteFile();
+        String key = templateFile.getPath();
+        synchronized (templates) {
+            CachedTemplate template = templates.get(key);
+            if (template == null) {
+                template = new CachedTemplate(templateFile);
+                templates.put(key, template);
+            }
+            return template;
+        }
+    }
+
+    /**
+     * A single loaded template along with what we need to know to tell
+     * whether its file has changed since we loaded it.
+     */
+    private static class CachedTemplate {
+
+        File templateFile;
+        long lastModified = -1;
+        long length = -1;
+        byte[] hash;
+        Document pristineDoc;
+        TemplateIndex index;
+        SplitTemplate splitTemplate;
+        CompiledTemplate compiledTemplate;
+
+        // THE FILE'S CONTENTS, WHICH WE ONLY KEEP UNTIL THEY'RE PARSED
+        byte[] fileBytes;
+
+        // WHETHER WE'VE TRIED COMPILING THE TEMPLATE, SINCE NOT ALL CAN BE
+        boolean compileTried;
+
+        CachedTemplate(File initTemplateFile) {
+            templateFile = initTemplateFile;
+        }
+
+        // MAKES A COPY OF THE TEMPLATE, RELOADING IT FIRST IF IT HAS CHANGED
+        synchronized Document copy()
+                throws IOException, SAXException, ParserConfigurationException {
+            reloadIfChanged();
+            Document doc = (Document) getPristineDoc().cloneNode(true);
+            doc.setUserData(TemplateIndex.USER_DATA_KEY, index, null);
+            return doc;
+        }
+
+        // SPLITS UP THE TEMPLATE, RELOADING IT FIRST IF IT HAS CHANGED. NOTE
+        // THAT EVEN READING THE PRISTINE DOCUMENT ISN'T THREAD SAFE, WHICH IS
+        // WHY THIS IS DONE HERE WHILE HOLDING THE LOCK
+        synchronized SplitTemplate split()
+                throws IOException, SAXException, ParserConfigurationException {
+            reloadIfChanged();
+            if (splitTemplate == null) {
+                splitTemplate = new SplitTemplate(getPristineDoc());
+            }
+            return splitTemplate;
+        }
+
+        // COMPILES THE TEMPLATE, RELOADING IT FIRST IF IT HAS CHANGED, OR
+        // LOADS IT FROM compiledFile IF IT WAS ALREADY COMPILED THERE
+        synchronized CompiledTemplate compile(File compiledFile)
+                throws IOException, SAXException, ParserConfigurationException,
+                TransformerConfigurationException {
+            reloadIfChanged();
+            if (!compileTried) {
+                if (compiledFile != null) {
+                    compiledTemplate = CompiledTemplate.load(compiledFile, hash);
+                }
+                if (compiledTemplate == null) {
+                    compiledTemplate = CompiledTemplate.compile(split(), hash);
+                    if ((compiledTemplate != null) && (compiledFile != null)) {
+                        try {
+                            compiledFile.getParentFile().mkdirs();
+                            compiledTemplate.save(compiledFile);
+                        } catch (IOException ioe) {
+                            // WE'LL JUST HAVE TO COMPILE IT AGAIN NEXT TIME
+                        }
+                    }
+                }
+                compileTried = true;
+            }
+            return compiledTemplate;
+        }
+
+        // GETS THE HASH OF THE TEMPLATE, RELOADING IT FIRST IF IT HAS CHANGED
+        synchronized byte[] getHash() throws IOException {
+            reloadIfChanged();
+            return hash.clone();
+        }
+
+        private void reloadIfChanged() throws IOException {
+            if ((hash == null)
+                    || (templateFile.lastModified() != lastModified)
+                    || (templateFile.length() != length)) {
+                reload();
+            }
+        }
+
+        // READS THE FILE, FORGETTING EVERYTHING WE MADE FROM IT ONLY IF ITS
+        // CONTENTS HAVE CHANGED
+        private void reload() throws IOException {
+            long fileModified = templateFile.lastModified();
+            byte[] newFileBytes = Files.readAllBytes(templateFile.toPath());
+            byte[] fileHash = hash(newFileBytes);
+            if ((hash == null) || !Arrays.equals(fileHash, hash)) {
+                fileBytes = newFileBytes;
+                pristineDoc = null;
+                index = null;
+                splitTemplate = null;
+                compiledTemplate = null;
+                compileTried = false;
+                hash = fileHash;
+            }
+            lastModified = fileModified;
+            length = newFileBytes.length;
+        }
+
+        // PARSES THE TEMPLATE THE FIRST TIME IT'S NEEDED
+        private Document getPristineDoc() throws SAXException, IOException, ParserConfigurationException {
+            if (pristineDoc == null) {
+                DocumentBuilder docBuilder = XMLToolbox.getDocumentBuilder();
+                pristineDoc = docBuilder.parse(new ByteArrayInputStream(fileBytes),
+                        templateFile.toURI().toString());
+                index = new TemplateIndex(pristineDoc);
+                fileBytes = null;
+            }
+            return pristineDoc;
+        }
+
+        private static byte[] hash(byte[] bytes) throws IOException {
+            try {
+                return MessageDigest.getInstance(HASH_ALGORITHM).digest(bytes);
+            } catch (NoSuchAlgorithmException nsae) {
+                throw new IOException(nsae.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package csb.file;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.xml.transform.sax.TransformerHandler;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * A SplitTemplate is a base page broken up ahead of time into the runs of
+ * markup that never change and the slots where a course's content goes. A page
+ * is written by streaming those runs to a serializer and, at each slot, having
+ * the content generated straight into it too, so no Document is ever built for
+ * the page. Since the serializer is the same one used for writing a page's DOM,
+ * and it's given exactly what walking that DOM would give it, the page comes
+ * out the same either way.
+ *
+ * A SplitTemplate never changes once it's made, so it may be used to write any
+ * number of pages at the same time.
+ */
+public class SplitTemplate {
+
+    // THE KINDS OF THINGS A TEMPLATE IS MADE OF
+    static final int START_ELEMENT = 0;
+    static final int END_ELEMENT = 1;
+    static final int TEXT = 2;
+    static final int COMMENT = 3;
+    static final int PROCESSING_INSTRUCTION = 4;
+    static final int SLOT = 5;
+
+    // ALL ATTRIBUTES ARE PLAIN TEXT AS FAR AS THE SERIALIZER IS CONCERNED
+    static final String ATTRIBUTE_TYPE = "CDATA";
+
+    // THE TEMPLATE, IN ORDER
+    private final List<Part> parts;
+
+    // THE SLOTS THE TEMPLATE HAS
+    private final EnumSet<PageSlot> slots;
+
+    /**
+     * This constructor splits up a base page. Note that the page itself isn't
+     * kept, so it may be changed afterwards.
+     *
+     * @param template The base page.
+     */
+    public SplitTemplate(Document template) {
+        parts = new ArrayList();
+        slots = EnumSet.noneOf(PageSlot.class);
+        split(template);
+    }
+
+    /**
+     * Accessor method for testing whether this template has a slot.
+     *
+     * @param slot The slot to test for.
+     *
+     * @return true if the template has that slot, false otherwise.
+     */
+    public boolean hasSlot(PageSlot slot) {
+        return slots.contains(slot);
+    }
+
+    // THE PARTS OF THE TEMPLATE, IN ORDER. NOTE THAT A SLOT'S PART IS
+    // ALWAYS FOLLOWED BY THE END OF ITS ELEMENT
+    List<Part> getParts() {
+        return Collections.unmodifiableList(parts);
+    }
+
+    /**
+     * Writes a page made from this template to a serializer.
+     *
+     * @param content What to put in each slot, slots not in here get no
+     * content.
+     * @param handler The serializer, whose result is where the page goes.
+     *
+     * @throws SAXException Thrown when the page cannot be written.
+     */
+    public void write(Map<PageSlot, Consumer<PageContent>> content, TransformerHandler handler)
+            throws SAXException {
+        handler.startDocument();
+        for (Part part : parts) {
+            if (part.type == SLOT) {
+                Consumer<PageContent> slotContent = content.get(part.slot);
+                if (slotContent != null) {
+                    StreamedPageContent.write(slotContent, handler);
+                }
+            } else {
+                part.writeTo(handler);
+            }
+        }
+        handler.endDocument();
+    }
+
+    // BREAKS UP ALL THE CHILDREN OF parent
+    private void split(Node parent) {
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            switch (child.getNodeType()) {
+                case Node.ELEMENT_NODE:
+                    splitElement((Element) child);
+                    break;
+                case Node.TEXT_NODE:
+                case Node.CDATA_SECTION_NODE:
+                    parts.add(new Part(TEXT, null, null, child.getNodeValue().toCharArray(), null));
+                    break;
+                case Node.COMMENT_NODE:
+                    parts.add(new Part(COMMENT, null, null, child.getNodeValue().toCharArray(), null));
+                    break;
+                case Node.PROCESSING_INSTRUCTION_NODE:
+                    parts.add(new Part(PROCESSING_INSTRUCTION, child.getNodeName(), null,
+                            child.getNodeValue().toCharArray(), null));
+                    break;
+                case Node.ENTITY_REFERENCE_NODE:
+                    split(child);
+                    break;
+                default:
+                    // LIKE THE DOCTYPE, WHICH ISN'T WRITTEN
+            }
+        }
+    }
+
+    // BREAKS UP AN ELEMENT, MARKING WHERE ITS SLOT'S CONTENT GOES IF IT HAS ONE
+    private void splitElement(Element element) {
+        PageSlot elementSlot = null;
+        for (PageSlot slot : PageSlot.values()) {
+            if (!slots.contains(slot) && slot.matches(element)) {
+                elementSlot = slot;
+                slots.add(slot);
+                break;
+            }
+        }
+
+        // ATTRIBUTES COME IN THE ORDER THE DOM KEEPS THEM IN
+        AttributesImpl attributes = new AttributesImpl();
+        NamedNodeMap elementAttributes = element.getAttributes();
+        for (int i = 0; i < elementAttributes.getLength(); i++) {
+            Node attribute = elementAttributes.item(i);
+            attributes.addAttribute("", attribute.getNodeName(), attribute.getNodeName(),
+                    ATTRIBUTE_TYPE, attribute.getNodeValue());
+        }
+        String tag = element.getTagName();
+        parts.add(new Part(START_ELEMENT, tag, attributes, null, null));
+        if ((elementSlot == null) || !elementSlot.isReplacingContent()) {
+            split(element);
+        }
+        if (elementSlot != null) {
+            parts.add(new Part(SLOT, null, null, null, elementSlot));
+        }
+        parts.add(new Part(END_ELEMENT, tag, null, null, null));
+    }
+
+    /**
+     * One piece of a template.
+     */
+    static class Part {
+
+        final int type;
+        final String name;
+        final AttributesImpl attributes;
+        final char[] text;
+        final PageSlot slot;
+
+        Part(int initType, String initName, AttributesImpl initAttributes, char[] initText,
+                PageSlot initSlot) {
+            type = initType;
+            name = initName;
+            attributes = initAttributes;
+            text = initText;
+            slot = initSlot;
+        }
+
+        // SENDS THIS PART TO A SERIALIZER, NOTE THAT SLOTS HAVE NOTHING TO SEND
+        void writeTo(TransformerHandler handler) throws SAXException {
+            switch (type) {
+                case START_ELEMENT:
+                    handler.startElement("", name, name, attributes);
+                    break;
+                case END_ELEMENT:
+                    handler.endElement("", name, name);
+                    break;
+                case TEXT:
+                    handler.characters(text, 0, text.length);
+                    break;
+                case COMMENT:
+                    handler.comment(text, 0, text.length);
+                    break;
+                case PROCESSING_INSTRUCTION:
+                    handler.processingInstruction(name, new String(text));
+                    break;
+                default:
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package csb.file;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import javax.xml.transform.sax.TransformerHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * This PageContent sends the content it's given straight to a serializer.
+ * Since a DOM keeps an element's attributes sorted by name, and they're written
+ * in that order, we hold on to an element's start until we know all its
+ * attributes so that they can be written in the same order here.
+ */
+class StreamedPageContent implements PageContent {
+
+    // WHERE THE CONTENT GOES
+    private final TransformerHandler handler;
+
+    // THE ELEMENTS WE'RE INSIDE OF, THE CURRENT ONE LAST
+    private final ArrayList<String> openElements;
+
+    // THE ELEMENT WHOSE START WE'RE HOLDING ON TO, IF ANY, AND ITS ATTRIBUTES
+    private String pendingElement;
+    private final TreeMap<String, String> pendingAttributes;
+
+    private StreamedPageContent(TransformerHandler initHandler) {
+        handler = initHandler;
+        openElements = new ArrayList();
+        pendingAttributes = new TreeMap();
+    }
+
+    /**
+     * Generates content straight into a serializer.
+     *
+     * @param content Generates the content.
+     * @param handler The serializer to send it to.
+     *
+     * @throws SAXException Thrown when the serializer can't write the content.
+     */
+    static void write(Consumer<PageContent> content, TransformerHandler handler) throws SAXException {
+        StreamedPageContent streamedContent = new StreamedPageContent(handler);
+        try {
+            content.accept(streamedContent);
+            streamedContent.flushPendingElement();
+        } catch (ContentWriteException cwe) {
+            throw cwe.getCause();
+        }
+    }
+
+    @Override
+    public void startElement(String tag) {
+        flushPendingElement();
+        pendingElement = tag;
+        openElements.add(tag);
+    }
+
+    @Override
+    public void setAttribute(String name, String value) {
+        pendingAttributes.put(name, value);
+    }
+
+    @Override
+    public void appendText(String text) {
+        flushPendingElement();
+        try {
+            handler.characters(text.toCharArray(), 0, text.length());
+        } catch (SAXException saxe) {
+            throw new ContentWriteException(saxe);
+        }
+    }
+
+    @Override
+    public void endElement() {
+        flushPendingElement();
+        String tag = openElements.remove(openElements.size() - 1);
+        try {
+            handler.endElement("", tag, tag);
+        } catch (SAXException saxe) {
+            throw new ContentWriteException(saxe);
+        }
+    }
+
+    // WRITES THE START OF THE ELEMENT WE'VE BEEN HOLDING ON TO, IF ANY
+    private void flushPendingElement() {
+        if (pendingElement == null) {
+            return;
+        }
+        AttributesImpl attributes = new AttributesImpl();
+        for (Map.Entry<String, String> attribute : pendingAttributes.entrySet()) {
+            attributes.addAttribute("", attribute.getKey(), attribute.getKey(),
+                    SplitTemplate.ATTRIBUTE_TYPE, attribute.getValue());
+        }
+        try {
+            handler.startElement("", pendingElement, pendingElement, attributes);
+        } catch (SAXException saxe) {
+            throw new ContentWriteException(saxe);
+        }
+        pendingElement = null;
+        pendingAttributes.clear();
+    }
+
+    /**
+     * Carries a serializer's problem out of the content being generated,
+     * which can't throw it itself.
+     */
+    private static class ContentWriteException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        ContentWriteException(SAXException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized SAXException getCause() {
+            return (SAXException) super.getCause();
+        }
+    }
+}
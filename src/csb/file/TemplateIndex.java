@@ -0,0 +1,140 @@
+package csb.file;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * This class finds the elements of a template page by id or class without
+ * searching the page. It is built once from the pristine template, recording
+ * where each element with an id or class sits in the tree, and since every
+ * copy of the template has the same shape those locations can then be looked
+ * up in any copy just by following them down from the root.
+ *
+ * Note that the index describes the template as it was loaded. Appending to
+ * elements of a copy, which is how pages are filled in, never moves the
+ * elements that were already there, but inserting or removing nodes anywhere
+ * else may, after which lookups in that copy can't be trusted.
+ */
+public class TemplateIndex {
+
+    // COPIES OF TEMPLATES CARRY THEIR INDEX UNDER THIS KEY
+    public static final String USER_DATA_KEY = "csb.file.TemplateIndex";
+
+    // THE ATTRIBUTES WE INDEX
+    public static final String ID_ATTRIBUTE = "id";
+    public static final String CLASS_ATTRIBUTE = "class";
+
+    // WHERE EACH ELEMENT IS, AS THE CHILD NUMBER AT EACH LEVEL DOWN FROM THE DOCUMENT
+    private final HashMap<String, int[]> idPaths;
+    private final HashMap<String, List<int[]>> classPaths;
+
+    /**
+     * This constructor indexes every element of the template that has an id
+     * or a class.
+     *
+     * @param template The pristine template page.
+     */
+    public TemplateIndex(Document template) {
+        idPaths = new HashMap();
+        classPaths = new HashMap();
+        indexChildren(template, new int[0]);
+    }
+
+    /**
+     * Provides the index of a template copy, which will have been attached to
+     * it by the SiteTemplateCache. Documents that didn't come from the cache
+     * get a new index built for them.
+     *
+     * @param doc A copy of a template page.
+     *
+     * @return The index for that page.
+     */
+    public static TemplateIndex getIndex(Document doc) {
+        TemplateIndex index = (TemplateIndex) doc.getUserData(USER_DATA_KEY);
+        if (index == null) {
+            index = new TemplateIndex(doc);
+            doc.setUserData(USER_DATA_KEY, index, null);
+        }
+        return index;
+    }
+
+    /**
+     * Finds the element with the id in a copy of the template.
+     *
+     * @param doc The copy to look in.
+     * @param id The id to look for.
+     *
+     * @return The element, or null if the template has no element with that id.
+     */
+    public Element getElementById(Document doc, String id) {
+        int[] path = idPaths.get(id);
+        return (path == null) ? null : follow(doc, path);
+    }
+
+    /**
+     * Finds all the elements with the class in a copy of the template, in
+     * document order.
+     *
+     * @param doc The copy to look in.
+     * @param className The class to look for.
+     *
+     * @return The elements, which will be empty if none have that class.
+     */
+    public List<Element> getElementsWithClass(Document doc, String className) {
+        List<int[]> paths = classPaths.get(className);
+        if (paths == null) {
+            return Collections.emptyList();
+        }
+        ArrayList<Element> elements = new ArrayList(paths.size());
+        for (int[] path : paths) {
+            elements.add(follow(doc, path));
+        }
+        return elements;
+    }
+
+    // RECORDS WHERE ALL THE ELEMENTS WITH IDS AND CLASSES UNDER parent ARE
+    private void indexChildren(Node parent, int[] parentPath) {
+        int childNum = 0;
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                Element element = (Element) child;
+                int[] path = new int[parentPath.length + 1];
+                System.arraycopy(parentPath, 0, path, 0, parentPath.length);
+                path[parentPath.length] = childNum;
+
+                // NOTE THAT ONLY THE FIRST ELEMENT WITH AN ID COUNTS
+                String id = element.getAttribute(ID_ATTRIBUTE);
+                if (!id.isEmpty()) {
+                    idPaths.putIfAbsent(id, path);
+                }
+
+                // AN ELEMENT MAY HAVE ANY NUMBER OF CLASSES
+                String classes = element.getAttribute(CLASS_ATTRIBUTE).trim();
+                if (!classes.isEmpty()) {
+                    for (String className : classes.split("\\s+")) {
+                        classPaths.computeIfAbsent(className, c -> new ArrayList(1)).add(path);
+                    }
+                }
+                indexChildren(element, path);
+            }
+            childNum++;
+        }
+    }
+
+    // FINDS THE ELEMENT AT path IN doc
+    private static Element follow(Document doc, int[] path) {
+        Node node = doc;
+        for (int childNum : path) {
+            node = node.getFirstChild();
+            for (int i = 0; i < childNum; i++) {
+                node = node.getNextSibling();
+            }
+        }
+        return (Element) node;
+    }
+}
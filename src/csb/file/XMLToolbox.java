@@ -0,0 +1,143 @@
+package csb.file;
+
+import java.io.StringReader;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Result;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamSource;
+
+/**
+ * This class hands out the parsers and transformers used for reading and
+ * writing site pages. Looking up the JAXP factories and making new parsers and
+ * transformers is expensive, so each factory is only made once and each thread
+ * keeps its own parser and transformer, which it reuses for every page. The
+ * way pages are written is compiled once into a Templates object, which every
+ * thread's transformer is made from, so they all have the same output
+ * properties without anyone having to set them.
+ *
+ * Pages that are streamed rather than built as a DOM are written by a
+ * TransformerHandler, which is given the same output properties so that a page
+ * comes out the same whichever way it was written.
+ *
+ * Note that what this provides must only be used by the thread that asked for
+ * it, and must not be held on to past the page it was asked for.
+ */
+public final class XMLToolbox {
+
+    // THIS COPIES A PAGE AS IT IS, INDENTING IT BY 2 SPACES, WHICH IS
+    // WHAT AN IDENTITY TRANSFORMER WITH THOSE OUTPUT PROPERTIES DOES
+    public static final String PAGE_INDENT_AMOUNT = "2";
+    public static final String PAGE_STYLESHEET
+            = "<xsl:stylesheet version=\"1.0\""
+            + " xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\""
+            + " xmlns:xalan=\"http://xml.apache.org/xslt\">"
+            + "<xsl:output indent=\"yes\" xalan:indent-amount=\"" + PAGE_INDENT_AMOUNT + "\"/>"
+            + "<xsl:template match=\"/\"><xsl:copy-of select=\".\"/></xsl:template>"
+            + "</xsl:stylesheet>";
+
+    // THE FACTORIES AREN'T THREAD SAFE, SO WE ONLY EVER USE THIS ONE WHILE
+    // HOLDING ITS LOCK, AND ONLY TO MAKE EACH THREAD'S PARSER
+    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY
+            = DocumentBuilderFactory.newInstance();
+
+    // THE COMPILED PAGE STYLESHEET, WHICH IS THREAD SAFE
+    private static Templates pageTemplates;
+
+    // EACH THREAD'S OWN PARSER AND TRANSFORMER
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDERS = new ThreadLocal();
+    private static final ThreadLocal<Transformer> PAGE_TRANSFORMERS = new ThreadLocal();
+
+    // AND ITS OWN FACTORY FOR MAKING PAGE HANDLERS
+    private static final ThreadLocal<SAXTransformerFactory> HANDLER_FACTORIES = new ThreadLocal();
+
+    // THE OUTPUT PROPERTY FOR HOW FAR TO INDENT
+    private static final String INDENT_AMOUNT_KEY = "{http://xml.apache.org/xslt}indent-amount";
+
+    // THIS CLASS ONLY HAS STATIC METHODS
+    private XMLToolbox() {
+    }
+
+    /**
+     * Provides this thread's parser, ready to parse a new document.
+     *
+     * @return The parser.
+     *
+     * @throws ParserConfigurationException Thrown when no parser is available.
+     */
+    public static DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
+        DocumentBuilder docBuilder = DOCUMENT_BUILDERS.get();
+        if (docBuilder == null) {
+            synchronized (DOCUMENT_BUILDER_FACTORY) {
+                docBuilder = DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
+            }
+            DOCUMENT_BUILDERS.set(docBuilder);
+        } else {
+            docBuilder.reset();
+        }
+        return docBuilder;
+    }
+
+    /**
+     * Provides this thread's transformer for writing site pages, which copies
+     * a page to its result as is, indented by 2 spaces.
+     *
+     * @return The transformer.
+     *
+     * @throws TransformerConfigurationException Thrown when no transformer is
+     * available.
+     */
+    public static Transformer getPageTransformer() throws TransformerConfigurationException {
+        Transformer transformer = PAGE_TRANSFORMERS.get();
+        if (transformer == null) {
+            transformer = getPageTemplates().newTransformer();
+            PAGE_TRANSFORMERS.set(transformer);
+        } else {
+            // THIS PUTS IT BACK THE WAY THE TEMPLATES MADE IT
+            transformer.reset();
+        }
+        return transformer;
+    }
+
+    /**
+     * Makes a new handler for writing a site page as a stream of SAX events,
+     * which it writes to result exactly as the page transformer would write
+     * the same page's DOM. A handler writes one page and is then thrown away.
+     *
+     * @param result Where the page goes.
+     *
+     * @return The handler.
+     *
+     * @throws TransformerConfigurationException Thrown when no handler is
+     * available.
+     */
+    public static TransformerHandler newPageHandler(Result result) throws TransformerConfigurationException {
+        SAXTransformerFactory factory = HANDLER_FACTORIES.get();
+        if (factory == null) {
+            factory = (SAXTransformerFactory) TransformerFactory.newInstance();
+            HANDLER_FACTORIES.set(factory);
+        }
+        TransformerHandler handler = factory.newTransformerHandler();
+        Transformer transformer = handler.getTransformer();
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.setOutputProperty(INDENT_AMOUNT_KEY, PAGE_INDENT_AMOUNT);
+        handler.setResult(result);
+        return handler;
+    }
+
+    // COMPILES THE PAGE STYLESHEET THE FIRST TIME IT'S NEEDED
+    private static synchronized Templates getPageTemplates() throws TransformerConfigurationException {
+        if (pageTemplates == null) {
+            TransformerFactory factory = TransformerFactory.newInstance();
+            pageTemplates = factory.newTemplates(new StreamSource(new StringReader(PAGE_STYLESHEET)));
+        }
+        return pageTemplates;
+    }
+}
@@ -9,6 +9,7 @@ import csb.data.CourseDataView;
 import csb.data.CoursePage;
 import csb.controller.FileController;
 import csb.controller.ScheduleEditController;
+import csb.controller.AutosaveController.AutosaveState;
 import csb.data.Assignment;
 import csb.data.Instructor;
 import csb.data.ScheduleItem;
@@ -39,6 +40,9 @@ import javafx.scene.control.Tooltip;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.GridPane;
@@ -50,12 +54,6 @@ import javafx.stage.Stage;
 import properties_manager.PropertiesManager;
 
 import csb.data.Lecture;
-import java.util.concurrent.locks.ReentrantLock;
-import javafx.application.Platform;
-import javafx.concurrent.Task;
-import javafx.scene.control.ProgressBar;
-import javafx.scene.control.ProgressIndicator;
-import javafx.scene.text.Font;
 
 /**
  * This class provides the Graphical User Interface for this application,
@@ -79,6 +77,10 @@ public class CSB_GUI implements CourseDataView {
     static final int LARGE_TEXT_FIELD_LENGTH = 20;
     static final int SMALL_TEXT_FIELD_LENGTH = 5;
 
+    // THESE ARE THE KEYBOARD SHORTCUTS FOR UNDOING AND REDOING EDITS
+    static final KeyCombination UNDO_SHORTCUT = new KeyCodeCombination(KeyCode.Z, KeyCombination.SHORTCUT_DOWN);
+    static final KeyCombination REDO_SHORTCUT = new KeyCodeCombination(KeyCode.Y, KeyCombination.SHORTCUT_DOWN);
+
     // THIS MANAGES ALL OF THE APPLICATION'S DATA
     CourseDataManager dataManager;
 
@@ -120,6 +122,7 @@ public class CSB_GUI implements CourseDataView {
     Button saveCourseButton;
     Button exportSiteButton;
     Button exitButton;
+    Label autosaveLabel;
 
     // WE'LL ORGANIZE OUR WORKSPACE COMPONENTS USING A BORDER PANE
     BorderPane workspacePane;
@@ -240,6 +243,7 @@ public class CSB_GUI implements CourseDataView {
     // HERE ARE OUR DIALOGS
     MessageDialog messageDialog;
     YesNoCancelDialog yesNoCancelDialog;
+    ExportProgressDialog exportProgressDialog;
     
     /**
      * Constructor for making this GUI, note that it does not initialize the UI
@@ -438,6 +442,9 @@ public class CSB_GUI implements CourseDataView {
         loadCourseButton.setDisable(false);
         exportSiteButton.setDisable(false);
 
+        // AND LET THE USER KNOW WHAT THE AUTOSAVER IS DOING
+        autosaveLabel.setText(getAutosaveText(fileController.getAutosaveState()));
+
         // NOTE THAT THE NEW, LOAD, AND EXIT BUTTONS
         // ARE NEVER DISABLED SO WE NEVER HAVE TO TOUCH THEM
     }
@@ -477,6 +484,7 @@ public class CSB_GUI implements CourseDataView {
     
     private void initDialogs() {
         messageDialog = new MessageDialog(primaryStage, CLOSE_BUTTON_LABEL);
+        exportProgressDialog = new ExportProgressDialog(primaryStage, CANCEL_BUTTON_LABEL);
         yesNoCancelDialog = new YesNoCancelDialog(primaryStage);
     }
     
@@ -494,6 +502,30 @@ public class CSB_GUI implements CourseDataView {
         saveCourseButton = initChildButton(fileToolbarPane, CSB_PropertyType.SAVE_COURSE_ICON, CSB_PropertyType.SAVE_COURSE_TOOLTIP, true);
         exportSiteButton = initChildButton(fileToolbarPane, CSB_PropertyType.EXPORT_PAGE_ICON, CSB_PropertyType.EXPORT_PAGE_TOOLTIP, true);
         exitButton = initChildButton(fileToolbarPane, CSB_PropertyType.EXIT_ICON, CSB_PropertyType.EXIT_TOOLTIP, false);
+
+        // THIS SHOWS WHAT THE AUTOSAVER IS DOING, WHICH IS NOTHING YET
+        autosaveLabel = new Label();
+        autosaveLabel.getStyleClass().add(CLASS_PROMPT_LABEL);
+        fileToolbarPane.getChildren().add(autosaveLabel);
+    }
+
+    // GETS THE TEXT TO SHOW FOR THE AUTOSAVER'S STATE
+    private String getAutosaveText(AutosaveState state) {
+        PropertiesManager props = PropertiesManager.getPropertiesManager();
+        switch (state) {
+            case PENDING:
+                return props.getProperty(CSB_PropertyType.AUTOSAVE_PENDING_LABEL);
+            case SAVING:
+                return props.getProperty(CSB_PropertyType.AUTOSAVE_SAVING_LABEL);
+            case SAVED:
+                return props.getProperty(CSB_PropertyType.AUTOSAVE_SAVED_LABEL);
+            case AUTOSAVED:
+                return props.getProperty(CSB_PropertyType.AUTOSAVE_AUTOSAVED_LABEL);
+            case FAILED:
+                return props.getProperty(CSB_PropertyType.AUTOSAVE_FAILED_LABEL);
+            default:
+                return "";
+        }
     }
 
     // CREATES AND SETS UP ALL THE CONTROLS TO GO IN THE APP WORKSPACE
@@ -770,6 +802,15 @@ public class CSB_GUI implements CourseDataView {
         csbPane.setTop(fileToolbarPane);
         primaryScene = new Scene(csbPane);
 
+        // UNDO AND REDO WORK FROM ANYWHERE IN THE WINDOW, NOTE THAT A TEXT
+        // FIELD BEING TYPED IN UNDOES ITS OWN TYPING FIRST
+        primaryScene.getAccelerators().put(UNDO_SHORTCUT, () -> {
+            fileController.handleUndoRequest(this);
+        });
+        primaryScene.getAccelerators().put(REDO_SHORTCUT, () -> {
+            fileController.handleRedoRequest(this);
+        });
+
         // NOW TIE THE SCENE TO THE WINDOW, SELECT THE STYLESHEET
         // WE'LL USE TO STYLIZE OUR GUI CONTROLS, AND OPEN THE WINDOW
         primaryScene.getStylesheets().add(PRIMARY_STYLE_SHEET);
@@ -780,7 +821,10 @@ public class CSB_GUI implements CourseDataView {
     // INIT ALL THE EVENT HANDLERS
     private void initEventHandlers() throws IOException {
         // FIRST THE FILE CONTROLS
-        fileController = new FileController(messageDialog, yesNoCancelDialog, courseFileManager, siteExporter);
+        fileController = new FileController(messageDialog, yesNoCancelDialog, exportProgressDialog, courseFileManager, siteExporter);
+        fileController.getAutosaver().setListener((state, upToDate) -> {
+            fileController.handleAutosaveStateChange(this, upToDate);
+        });
         newCourseButton.setOnAction(e -> {
             fileController.handleNewCourseRequest(this);
         });
@@ -791,8 +835,7 @@ public class CSB_GUI implements CourseDataView {
             fileController.handleSaveCourseRequest(this, dataManager.getCourse());
         });
         exportSiteButton.setOnAction(e -> {
-            //fileController.handleExportCourseRequest(this);
-            progressTest(theStage, dataManager.getCourse());
+            fileController.handleExportCourseRequest(this);
         });
         exitButton.setOnAction(e -> {
             fileController.handleExitRequest(this);
@@ -926,7 +969,8 @@ public class CSB_GUI implements CourseDataView {
     // REGISTER THE EVENT LISTENER FOR A TEXT FIELD
     private void registerTextFieldController(TextField textField) {
         textField.textProperty().addListener((observable, oldValue, newValue) -> {
-            courseController.handleCourseChangeRequest(this);
+            // TYPING INTO THE SAME FIELD IS UNDONE ALL AT ONCE
+            courseController.handleCourseChangeRequest(this, textField);
         });
     }
     
@@ -1019,89 +1063,5 @@ public class CSB_GUI implements CourseDataView {
         } else {
             course.unselectPage(cP);
         }
-    } 
-    
-    
-    ProgressBar bar;
-    ProgressIndicator indicator;
-    Button button;
-    Label processLabel;
-    int numTasks = 0;
-    Stage theStage = new Stage();
-    int index = 1;
-    
-    private void progressTest(Stage theStage, Course courseToExport) 
-    {
-
-        VBox box = new VBox();
-
-        HBox toolbar = new HBox();
-        bar = new ProgressBar(0);      
-        indicator = new ProgressIndicator(0);
-        indicator.setStyle("font-size: 36pt");
-        toolbar.getChildren().add(bar);
-        toolbar.getChildren().add(indicator);
-        
-        
-        processLabel = new Label();
-        processLabel.setFont(new Font("Serif", 36));
-        box.getChildren().add(toolbar);
-       
-        box.getChildren().add(processLabel);
-        
-        Scene scene = new Scene(box);
-        theStage.setScene(scene);
-
-       // button.setOnAction(e -> {
-                Task<Void> task = new Task<Void>() {
-                    int task = numTasks++;
-                    double max = courseToExport.getPages().size();
-                    double perc;
-                    @Override
-                    protected Void call() throws Exception {
-                        for (int i = 0; i < max; i++) {
-                           
-                            perc = i/max;
-                            
-                            // THIS WILL BE DONE ASYNCHRONOUSLY VIA MULTITHREADING
-                            Platform.runLater(new Runnable() {
-                                @Override
-                                public void run() {
-                                    bar.setProgress(perc);
-                                    indicator.setProgress(perc);
-                                    processLabel.setText("Exporting " + courseToExport.getPages().get(index-1).toString());
-                                    index++;
-                                }
-                            });
-
-                            // SLEEP EACH FRAME
-                            try {
-                                Thread.sleep(1000);
-                            } catch (InterruptedException ie) {
-                                ie.printStackTrace();
-                            }
-                        }
-                        index = 1;
-                        return null;
-                        
-                    }
-                };
-                // THIS GETS THE THREAD ROLLING
-                Thread thread = new Thread(task);
-                thread.start();
-                task.setOnSucceeded(e -> {
-                    
-                    fileController.handleExportCourseRequest(this);
-                    theStage.hide();
-                }
-                
-                
-                
-                );
-       // });        
-        theStage.show();
-    
-    
-    
-}
+    }
 }
\ No newline at end of file
@@ -0,0 +1,113 @@
+package csb.gui;
+
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+
+/**
+ * This class shows the progress of a task running on another thread, like
+ * exporting a site, and lets the user cancel it. Note that unlike our other
+ * dialogs this one doesn't wait, it's up to whoever started the task to hide
+ * it once the task is done.
+ */
+public class ExportProgressDialog extends Stage {
+    // GUI CONTROLS FOR OUR DIALOG
+    VBox progressPane;
+    Scene progressScene;
+    ProgressBar progressBar;
+    ProgressIndicator progressIndicator;
+    Label messageLabel;
+    Button cancelButton;
+
+    // THE TASK WHOSE PROGRESS WE'RE SHOWING
+    Task<?> task;
+
+    // THE STYLE CLASSES FOR OUR PROGRESS CONTROLS
+    static final String CLASS_PROGRESS_BAR = "progress_bar";
+    static final String CLASS_PROGRESS_PIE = "progress_pie";
+
+    /**
+     * Initializes this dialog so that it can be used repeatedly for all
+     * kinds of tasks.
+     *
+     * @param owner The owner stage of this modal dialog.
+     * @param cancelButtonText Text to appear on the cancel button.
+     */
+    public ExportProgressDialog(Stage owner, String cancelButtonText) {
+        // MAKE IT MODAL
+        initModality(Modality.WINDOW_MODAL);
+        initOwner(owner);
+
+        // THE PROGRESS CONTROLS
+        progressBar = new ProgressBar(0);
+        progressBar.getStyleClass().add(CLASS_PROGRESS_BAR);
+        progressIndicator = new ProgressIndicator(0);
+        progressIndicator.getStyleClass().add(CLASS_PROGRESS_PIE);
+        HBox progressToolbar = new HBox();
+        progressToolbar.setAlignment(Pos.CENTER);
+        progressToolbar.setSpacing(10);
+        progressToolbar.getChildren().add(progressBar);
+        progressToolbar.getChildren().add(progressIndicator);
+
+        // LABEL TO DISPLAY WHAT THE TASK IS DOING
+        messageLabel = new Label();
+
+        // CANCEL BUTTON
+        cancelButton = new Button(cancelButtonText);
+        cancelButton.setOnAction(e -> {
+            if (task != null) {
+                task.cancel();
+            }
+        });
+
+        // WE'LL PUT EVERYTHING HERE
+        progressPane = new VBox();
+        progressPane.setAlignment(Pos.CENTER);
+        progressPane.getChildren().add(progressToolbar);
+        progressPane.getChildren().add(messageLabel);
+        progressPane.getChildren().add(cancelButton);
+
+        // MAKE IT LOOK NICE
+        progressPane.setPadding(new Insets(10, 20, 20, 20));
+        progressPane.setSpacing(10);
+
+        // AND PUT IT IN THE WINDOW
+        progressScene = new Scene(progressPane);
+        progressScene.getStylesheets().add(CSB_GUI.PRIMARY_STYLE_SHEET);
+        this.setScene(progressScene);
+    }
+
+    /**
+     * This method ties the controls to the progress of the task and then pops
+     * open the dialog. Note that it returns right away.
+     *
+     * @param taskToShow The task whose progress to show.
+     */
+    public void show(Task<?> taskToShow) {
+        task = taskToShow;
+        progressBar.progressProperty().bind(task.progressProperty());
+        progressIndicator.progressProperty().bind(task.progressProperty());
+        messageLabel.textProperty().bind(task.messageProperty());
+        this.show();
+    }
+
+    /**
+     * This method hides the dialog and lets go of its task.
+     */
+    public void done() {
+        progressBar.progressProperty().unbind();
+        progressIndicator.progressProperty().unbind();
+        messageLabel.textProperty().unbind();
+        task = null;
+        this.hide();
+    }
+}
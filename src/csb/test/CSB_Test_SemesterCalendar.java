@@ -0,0 +1,71 @@
+package csb.test;
+
+import csb.data.Course;
+import csb.data.Instructor;
+import csb.data.SemesterCalendar;
+import csb.file.JsonCourseFileManager;
+
+/**
+ * This class is used to test the semester calendar on its own, without any
+ * page building in the way. It prints the calendar of a course and then times
+ * how long building it takes.
+ *
+ * Usage: CSB_Test_SemesterCalendar [course JSON file]
+ */
+public class CSB_Test_SemesterCalendar {
+    // THIS FILE HAD BETTER EXIST IF WE WANT THIS TEST TO SUCCEED
+    static String jsonPath = "./data/courses/CSE219.json";
+
+    // HOW MANY TIMES TO BUILD THE CALENDAR WHEN TIMING IT
+    static final int WARMUP_BUILDS = 2000;
+    static final int TIMED_BUILDS = 10000;
+
+    /**
+     * Loads the course, prints its calendar and times building it.
+     * 
+     * @param args Optionally the course file to use instead of the default one.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) {
+            jsonPath = args[0];
+        }
+
+        // LOAD THE COURSE FROM THE JSON FILE
+        Course testCourse = new Course(new Instructor("Joe Shmo", "http://www.joeshmo.com"));
+        new JsonCourseFileManager().loadCourse(testCourse, jsonPath);
+
+        // PRINT WHAT HAPPENS EACH DAY
+        SemesterCalendar calendar = SemesterCalendar.build(testCourse);
+        for (SemesterCalendar.Week week : calendar.getWeeks()) {
+            System.out.println("WEEK OF " + week.getMonday());
+            for (SemesterCalendar.Day day : week.getDays()) {
+                StringBuilder dayText = new StringBuilder("  " + day.getDate().getDayOfWeek() + " " + day.getDate());
+                for (SemesterCalendar.Holiday holiday : day.getHolidays()) {
+                    dayText.append(" [").append(holiday.getDescription()).append("]");
+                }
+                SemesterCalendar.LectureSession lecture = day.getLecture();
+                if (lecture != null) {
+                    dayText.append(" Lecture ").append(lecture.getNumber()).append(": ")
+                            .append(lecture.getTopic()).append(" (session ")
+                            .append(lecture.getSession()).append(")");
+                }
+                for (SemesterCalendar.AssignmentDue assignment : day.getAssignmentsDue()) {
+                    dayText.append(" ").append(assignment.getName()).append(" due");
+                }
+                System.out.println(dayText);
+            }
+        }
+        System.out.println(calendar.getLectureSessionCount() + " LECTURE SESSIONS");
+
+        // AND THEN SEE HOW LONG IT TAKES TO BUILD
+        for (int i = 0; i < WARMUP_BUILDS; i++) {
+            SemesterCalendar.build(testCourse);
+        }
+        long startTime = System.nanoTime();
+        for (int i = 0; i < TIMED_BUILDS; i++) {
+            SemesterCalendar.build(testCourse);
+        }
+        long elapsed = System.nanoTime() - startTime;
+        System.out.printf("BUILT IN %.1f us ON AVERAGE%n", elapsed / 1e3 / TIMED_BUILDS);
+    }
+}